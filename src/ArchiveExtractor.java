@@ -0,0 +1,417 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Pure-Java tar (ustar, GNU long names, PAX) and zip extractor. The archive is read on the calling
+// thread; small regular files are buffered and written by a pool of writer threads, large files are
+// copied from the stream through one large direct buffer into a FileChannel.
+public class ArchiveExtractor implements AutoCloseable {
+    private static final int BLOCK = 512;
+    private static final int INLINE_THRESHOLD = 1024 * 1024;       // larger bodies are written on the reader thread
+    private static final int TRANSFER_BUFFER_SIZE = 1024 * 1024;  // one positional write per MB of a large file
+    private static final int MAX_IN_FLIGHT_BYTES = 64 * 1024 * 1024; // bounds memory held by queued writes
+
+    private final Path destDir;
+    private final Path realDestDir;
+    private final boolean setPermissions;
+    private final ExecutorService writers;
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_BYTES);
+    private final AtomicReference<IOException> writeError = new AtomicReference<>();
+    // Only the reader thread writes large files, so one buffer of each is enough
+    private final ByteBuffer transferBuffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+    private final byte[] readChunk = new byte[64 * 1024];
+    private final Set<Path> pendingWrites = ConcurrentHashMap.newKeySet(); // files queued but not yet written
+    private final Set<Path> createdLinks = new HashSet<>();                // real paths of symlinks this archive made
+    private long filesWritten;
+    private long bytesWritten;
+
+    public ArchiveExtractor(File destDir, int writerThreads) throws IOException {
+        this.destDir = destDir.toPath().toAbsolutePath().normalize();
+        this.setPermissions = !System.getProperty("os.name").toLowerCase().contains("win");
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+            Thread t = new Thread(r, "archive-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        Files.createDirectories(this.destDir);
+        this.realDestDir = this.destDir.toRealPath();
+    }
+
+    public long getFilesWritten() {
+        return filesWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Reads until the end-of-archive marker; the stream is left open so callers can drain it
+    public void extractTar(InputStream in) throws IOException {
+        byte[] header = new byte[BLOCK];
+        Map<String, String> globalPax = new HashMap<>();
+        Map<String, String> pax = new HashMap<>();
+        String longName = null;
+        String longLink = null;
+
+        while (true) {
+            if (readFully(in, header, 0, BLOCK) < BLOCK || isZeroBlock(header)) break;
+
+            char type = (char) header[156];
+            long size = parseNumber(header, 124, 12);
+
+            switch (type) {
+                case 'L': // GNU long name for the next entry
+                    longName = readString(in, size);
+                    continue;
+                case 'K': // GNU long link target for the next entry
+                    longLink = readString(in, size);
+                    continue;
+                case 'x': // PAX extended header for the next entry
+                    pax = parsePax(readString(in, size));
+                    continue;
+                case 'g': // PAX global header
+                    globalPax.putAll(parsePax(readString(in, size)));
+                    continue;
+                default:
+                    break;
+            }
+
+            String name = firstNonNull(longName, pax.get("path"), globalPax.get("path"), ustarName(header));
+            String link = firstNonNull(longLink, pax.get("linkpath"), globalPax.get("linkpath"), cString(header, 157, 100));
+            if (pax.containsKey("size")) size = Long.parseLong(pax.get("size"));
+            int mode = (int) parseNumber(header, 100, 8);
+            longName = null;
+            longLink = null;
+            pax = new HashMap<>();
+
+            Path target = resolve(name);
+            if (type == '5' || name.endsWith("/")) {
+                createDirectories(target);
+            } else if (type == '0' || type == 0 || type == '7') {
+                writeEntry(in, target, size, mode);
+                skipFully(in, padding(size));
+            } else if (type == '2') {
+                if (setPermissions) {
+                    // Queued writes resolved their paths before this link existed, so let them land first
+                    awaitWrites();
+                    Path realParent = createDirectories(target.getParent());
+                    checkLinkTarget(realParent, name, link);
+                    Files.deleteIfExists(target);
+                    try {
+                        Files.createSymbolicLink(target, Paths.get(link));
+                        createdLinks.add(realParent.resolve(target.getFileName()));
+                    } catch (UnsupportedOperationException | IOException e) {
+                        // Ignore symlink errors
+                    }
+                }
+            } else {
+                // Hard links, devices and anything else are skipped
+                skipFully(in, size + padding(size));
+            }
+            checkWriteError();
+        }
+        awaitWrites();
+    }
+
+    public void extractZip(InputStream in) throws IOException {
+        ZipInputStream zis = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            Path target = resolve(entry.getName());
+            if (entry.isDirectory()) {
+                createDirectories(target);
+            } else {
+                // Streamed zip entries often do not know their size up front
+                writeEntry(zis, target, entry.getSize(), 0);
+            }
+            zis.closeEntry();
+            checkWriteError();
+        }
+        awaitWrites();
+    }
+
+    // size < 0 means "until the entry stream ends", which only happens for zip entries
+    private void writeEntry(InputStream in, Path target, long size, int mode) throws IOException {
+        Path realParent = createDirectories(target.getParent());
+        filesWritten++;
+        // A duplicate entry must not race the earlier copy still queued; the last one in the archive wins
+        if (pendingWrites.contains(target)) awaitWrites();
+
+        if (size >= 0 && size <= INLINE_THRESHOLD) {
+            byte[] body = new byte[(int) size];
+            if (readFully(in, body, 0, body.length) < body.length) throw new EOFException("Truncated entry " + target);
+            bytesWritten += size;
+            inFlight.acquireUninterruptibly(Math.max(1, body.length));
+            pendingWrites.add(target);
+            writers.execute(() -> {
+                try {
+                    writeFile(target, realParent, ByteBuffer.wrap(body), mode);
+                } catch (IOException e) {
+                    writeError.compareAndSet(null, e);
+                } finally {
+                    pendingWrites.remove(target);
+                    inFlight.release(Math.max(1, body.length));
+                }
+            });
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS)) {
+            long written;
+            if (size > 0) {
+                written = transfer(in, channel, size);
+                if (written < size) throw new EOFException("Truncated entry " + target);
+            } else {
+                written = transfer(in, channel, Long.MAX_VALUE);
+                channel.truncate(written);
+            }
+            bytesWritten += written;
+        }
+        applyMode(target, mode);
+    }
+
+    // FileChannel.transferFrom on a stream source copies through an 8 KB temporary buffer, one write per
+    // chunk; filling a 1 MB direct buffer first cuts that to one write per megabyte without a heap copy
+    private long transfer(InputStream in, FileChannel channel, long size) throws IOException {
+        long position = 0;
+        boolean eof = false;
+        while (position < size && !eof) {
+            transferBuffer.clear();
+            while (transferBuffer.hasRemaining() && position + transferBuffer.position() < size) {
+                int want = (int) Math.min(Math.min(readChunk.length, transferBuffer.remaining()),
+                        size - position - transferBuffer.position());
+                int read = in.read(readChunk, 0, want);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                transferBuffer.put(readChunk, 0, read);
+            }
+            transferBuffer.flip();
+            while (transferBuffer.hasRemaining()) {
+                position += channel.write(transferBuffer, position);
+            }
+        }
+        return position;
+    }
+
+    // Runs on a writer thread, so the parent is re-checked in case it changed since the entry was queued
+    private void writeFile(Path target, Path realParent, ByteBuffer body, int mode) throws IOException {
+        if (!target.getParent().toRealPath().equals(realParent)) {
+            throw new IOException("Archive entry parent changed before it was written: " + destDir.relativize(target));
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS)) {
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+        applyMode(target, mode);
+    }
+
+    private void applyMode(Path target, int mode) {
+        if (setPermissions && (mode & 0111) != 0) {
+            target.toFile().setExecutable(true, (mode & 0011) == 0);
+        }
+    }
+
+    private void awaitWrites() throws IOException {
+        // Taking every permit means every queued write has finished and released its share
+        inFlight.acquireUninterruptibly(MAX_IN_FLIGHT_BYTES);
+        inFlight.release(MAX_IN_FLIGHT_BYTES);
+        checkWriteError();
+    }
+
+    // Clears the error once thrown so close() cannot rethrow the same instance and trip self-suppression
+    private void checkWriteError() throws IOException {
+        IOException e = writeError.getAndSet(null);
+        if (e != null) throw e;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writers.shutdown();
+        try {
+            writers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkWriteError();
+    }
+
+    // Rejects absolute names and ".." segments that would escape the destination directory
+    private Path resolve(String name) throws IOException {
+        Path target = destDir.resolve(name).normalize();
+        if (!target.startsWith(destDir)) {
+            throw new IOException("Archive entry outside destination: " + name);
+        }
+        return target;
+    }
+
+    // Follows the link target one component at a time the way the kernel will, so ".." applies to the
+    // real directory a component resolves to rather than to the text. Targets that pass through a link
+    // this archive created, or that do not really end up under the destination, are refused.
+    private void checkLinkTarget(Path realParent, String name, String link) throws IOException {
+        Path linkPath = Paths.get(link);
+        if (linkPath.isAbsolute()) {
+            throw new IOException("Archive symlink outside destination: " + name + " -> " + link);
+        }
+        Path current = realParent;
+        boolean missing = false;
+        for (int i = 0; i < linkPath.getNameCount(); i++) {
+            String part = linkPath.getName(i).toString();
+            if (part.equals(".") || part.isEmpty()) continue;
+            if (part.equals("..")) {
+                // ".." after a component that does not exist yet depends on what a later entry puts there
+                if (missing) throw new IOException("Archive symlink through a missing directory: " + name + " -> " + link);
+                current = current.getParent();
+                if (current == null) break;
+            } else {
+                current = current.resolve(part);
+                if (missing || !Files.exists(current, LinkOption.NOFOLLOW_LINKS)) {
+                    missing = true;
+                    continue;
+                }
+                if (createdLinks.contains(current)) {
+                    throw new IOException("Archive symlink through another archive symlink: " + name + " -> " + link);
+                }
+                current = current.toRealPath();
+            }
+            if (!current.startsWith(realDestDir)) break;
+        }
+        if (current == null || !current.startsWith(realDestDir)) {
+            throw new IOException("Archive symlink outside destination: " + name + " -> " + link);
+        }
+    }
+
+    // Creates dir and returns its real path, refusing to go through an existing symlink that leaves the destination
+    private Path createDirectories(Path dir) throws IOException {
+        Path existing = dir;
+        while (!Files.exists(existing)) existing = existing.getParent();
+        if (!existing.toRealPath().startsWith(realDestDir)) {
+            throw new IOException("Archive entry outside destination through a symlink: " + destDir.relativize(dir));
+        }
+        Files.createDirectories(dir);
+        return dir.toRealPath();
+    }
+
+    private static String ustarName(byte[] header) {
+        String name = cString(header, 0, 100);
+        // POSIX ustar ("ustar\0") splits long paths into prefix (offset 345) + name; GNU headers reuse that area
+        if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[262] == 0) {
+            String prefix = cString(header, 345, 155);
+            if (!prefix.isEmpty()) return prefix + "/" + name;
+        }
+        return name;
+    }
+
+    private static Map<String, String> parsePax(String records) {
+        // Each record is "<length> <key>=<value>\n", where length counts the whole record in bytes
+        Map<String, String> result = new HashMap<>();
+        byte[] bytes = records.getBytes(StandardCharsets.UTF_8);
+        int pos = 0;
+        while (pos < bytes.length) {
+            int space = pos;
+            while (space < bytes.length && bytes[space] != ' ') space++;
+            if (space >= bytes.length) break;
+            int length = Integer.parseInt(new String(bytes, pos, space - pos, StandardCharsets.US_ASCII));
+            if (length <= 0 || pos + length > bytes.length) break;
+            String record = new String(bytes, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            int eq = record.indexOf('=');
+            if (eq > 0) result.put(record.substring(0, eq), record.substring(eq + 1));
+            pos += length;
+        }
+        return result;
+    }
+
+    private static String readString(InputStream in, long size) throws IOException {
+        byte[] data = new byte[(int) size];
+        if (readFully(in, data, 0, data.length) < data.length) throw new EOFException("Truncated tar header");
+        skipFully(in, padding(size));
+        int end = data.length;
+        while (end > 0 && data[end - 1] == 0) end--; // GNU long names are NUL terminated
+        return new String(data, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static String cString(byte[] buffer, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && buffer[end] != 0) end++;
+        return new String(buffer, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    // Octal, or GNU base-256 when the high bit of the first byte is set
+    private static long parseNumber(byte[] buffer, int offset, int length) {
+        if ((buffer[offset] & 0x80) != 0) {
+            long result = buffer[offset] & 0x7f;
+            for (int i = 1; i < length; i++) result = (result << 8) | (buffer[offset + i] & 0xff);
+            return result;
+        }
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[offset + i];
+            if (b == 0) break;
+            if (b >= '0' && b <= '7') result = result * 8 + (b - '0');
+        }
+        return result;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static long padding(long size) {
+        return (BLOCK - (size % BLOCK)) % BLOCK;
+    }
+
+    private static String firstNonNull(String... values) {
+        for (String v : values) {
+            if (v != null && !v.isEmpty()) return v;
+        }
+        return "";
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, offset + total, length - total);
+            if (read < 0) break;
+            total += read;
+        }
+        return total;
+    }
+
+    // InputStream.skip may skip fewer bytes than asked (GZIPInputStream often does), so read through instead
+    private static void skipFully(InputStream in, long count) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(count, 8192)];
+        while (count > 0) {
+            int read = in.read(scratch, 0, (int) Math.min(scratch.length, count));
+            if (read < 0) throw new EOFException("Unexpected end of archive");
+            count -= read;
+        }
+    }
+}
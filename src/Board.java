@@ -1,33 +1,58 @@
+import java.util.Arrays;
+import java.util.Random;
+
 public class Board {
+    private static final String PIECE_SYMBOLS = "KQRBNPkqrbnp";
+    private static final long[][] ZOBRIST = new long[12][64];
+    private static final long ZOBRIST_WHITE_TO_MOVE;
+
+    static {
+        // Fixed seed so every game in the process hashes identical positions identically
+        Random random = new Random(0x5EEDC0DEL);
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                ZOBRIST[piece][square] = random.nextLong();
+            }
+        }
+        ZOBRIST_WHITE_TO_MOVE = random.nextLong();
+    }
+
     private Piece[][] grid;
+    private long lastValidationNanos;
 
     public Board() {
         grid = new Piece[8][8];
-        setupBoard();
+        reset();
     }
 
-    private void setupBoard() {
+    // Puts the pieces back on their starting squares, reusing this board's storage
+    public void reset() {
+        for (Piece[] column : grid) {
+            Arrays.fill(column, null);
+        }
+
         // Black pieces
-        grid[0][0] = new Rook(false);
-        grid[1][0] = new Knight(false);
-        grid[2][0] = new Bishop(false);
-        grid[3][0] = new Queen(false);
-        grid[4][0] = new King(false);
-        grid[5][0] = new Bishop(false);
-        grid[6][0] = new Knight(false);
-        grid[7][0] = new Rook(false);
-        for (int i = 0; i < 8; i++) grid[i][1] = new Pawn(false);
+        grid[0][0] = Rook.BLACK;
+        grid[1][0] = Knight.BLACK;
+        grid[2][0] = Bishop.BLACK;
+        grid[3][0] = Queen.BLACK;
+        grid[4][0] = King.BLACK;
+        grid[5][0] = Bishop.BLACK;
+        grid[6][0] = Knight.BLACK;
+        grid[7][0] = Rook.BLACK;
+        for (int i = 0; i < 8; i++) grid[i][1] = Pawn.BLACK;
 
         // White pieces
-        grid[0][7] = new Rook(true);
-        grid[1][7] = new Knight(true);
-        grid[2][7] = new Bishop(true);
-        grid[3][7] = new Queen(true);
-        grid[4][7] = new King(true);
-        grid[5][7] = new Bishop(true);
-        grid[6][7] = new Knight(true);
-        grid[7][7] = new Rook(true);
-        for (int i = 0; i < 8; i++) grid[i][6] = new Pawn(true);
+        grid[0][7] = Rook.WHITE;
+        grid[1][7] = Knight.WHITE;
+        grid[2][7] = Bishop.WHITE;
+        grid[3][7] = Queen.WHITE;
+        grid[4][7] = King.WHITE;
+        grid[5][7] = Bishop.WHITE;
+        grid[6][7] = Knight.WHITE;
+        grid[7][7] = Rook.WHITE;
+        for (int i = 0; i < 8; i++) grid[i][6] = Pawn.WHITE;
+        lastValidationNanos = 0;
     }
 
     public Piece getPiece(int x, int y) {
@@ -40,19 +65,76 @@ public class Board {
     }
 
     public boolean movePiece(int startX, int startY, int endX, int endY) {
+        long start = System.nanoTime();
+        lastValidationNanos = 0;
         Piece p = getPiece(startX, startY);
-        if (p == null) return false;
+        if (p == null) {
+            Metrics.MOVES_REJECTED.increment();
+            Metrics.BOARD_MOVE_PIECE.recordSince(start);
+            return false;
+        }
         
         // Basic validation
-        if (!p.isValidMove(this, startX, startY, endX, endY)) return false;
+        long validationStart = System.nanoTime();
+        boolean valid = p.isValidMove(this, startX, startY, endX, endY);
+        lastValidationNanos = System.nanoTime() - validationStart;
+        Metrics.PIECE_VALIDATE_MOVE.record(lastValidationNanos);
+        if (!valid) {
+            Metrics.MOVES_REJECTED.increment();
+            Metrics.BOARD_MOVE_PIECE.recordSince(start);
+            return false;
+        }
         
         // Capture or move
         grid[endX][endY] = p;
         grid[startX][startY] = null;
+        Metrics.MOVES_APPLIED.increment();
+        Metrics.BOARD_MOVE_PIECE.recordSince(start);
         return true;
     }
 
+    // Time spent in Piece.isValidMove during the most recent movePiece call
+    public long getLastValidationNanos() {
+        return lastValidationNanos;
+    }
+
+    public long positionHash(boolean whiteToMove) {
+        long hash = whiteToMove ? ZOBRIST_WHITE_TO_MOVE : 0;
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Piece p = grid[x][y];
+                if (p != null) {
+                    hash ^= ZOBRIST[pieceIndex(p)][y * 8 + x];
+                }
+            }
+        }
+        return hash;
+    }
+
+    // 0-5 for White K Q R B N P, 6-11 for the black pieces
+    public static int pieceIndex(Piece p) {
+        return PIECE_SYMBOLS.indexOf(p.getSymbol());
+    }
+
+    // Copy of the position indexed y * 8 + x, holding pieceIndex values or -1 for empty squares
+    public byte[] squares() {
+        byte[] squares = new byte[64];
+        copySquares(squares);
+        return squares;
+    }
+
+    public void copySquares(byte[] squares) {
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Piece p = grid[x][y];
+                squares[y * 8 + x] = (byte) (p == null ? -1 : pieceIndex(p));
+            }
+        }
+    }
+
     public void printBoard() {
+        GameEvents.BoardPrint event = new GameEvents.BoardPrint();
+        event.begin();
         System.out.println("  a b c d e f g h");
         for (int y = 0; y < 8; y++) {
             System.out.print((8 - y) + " ");
@@ -67,5 +149,6 @@ public class Board {
             System.out.println(8 - y);
         }
         System.out.println("  a b c d e f g h");
+        event.commit();
     }
 }
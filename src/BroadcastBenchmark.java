@@ -0,0 +1,101 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Times MoveBroadcast.publish with no spectators and with many spectators polled by a few threads, and
+// checks every spectator ends on the writer's final position without sequence gaps. The writer shuffles
+// pawns between ranks 2 and 3 and pauses briefly every 1024 moves so readers get a chance to catch up.
+// Run with: java BroadcastBenchmark [readers] [reader threads] [moves]
+public class BroadcastBenchmark {
+    private static final int CAPACITY = 1024;
+
+    private static class Spectator implements MoveBroadcast.Listener {
+        final MoveBroadcast.Reader reader;
+        final byte[] squares = new byte[64];
+        long last;
+        boolean gap;
+
+        Spectator(MoveBroadcast.Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public void onPosition(long sequence, byte[] position, boolean whiteToMove) {
+            System.arraycopy(position, 0, squares, 0, 64);
+            last = sequence;
+        }
+
+        @Override
+        public void onMove(long sequence, int from, int to, int piece, int captured, boolean gameOver, boolean endOfBatch) {
+            if (sequence != last + 1) gap = true;
+            last = sequence;
+            squares[to] = (byte) piece;
+            squares[from] = -1;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long moves = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+        run(0, 0, moves);
+        run(readers, threads, moves);
+    }
+
+    private static void run(int readers, int threads, long moves) throws InterruptedException {
+        Board board = new Board();
+        MoveBroadcast broadcast = new MoveBroadcast(board, CAPACITY);
+        Spectator[] spectators = new Spectator[readers];
+        for (int i = 0; i < readers; i++) spectators[i] = new Spectator(broadcast.newReader());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] pollers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            pollers[t] = new Thread(() -> {
+                while (running.get()) {
+                    int delivered = 0;
+                    for (int i = first; i < readers; i += threads) delivered += spectators[i].reader.poll(spectators[i], 64);
+                    if (delivered == 0) Thread.onSpinWait();
+                }
+                for (int i = first; i < readers; i += threads) {
+                    while (spectators[i].reader.poll(spectators[i], 64) > 0) {
+                        // drain
+                    }
+                }
+            });
+            pollers[t].start();
+        }
+
+        LatencyHistogram publish = new LatencyHistogram("publish");
+        for (long m = 0; m < moves; m++) {
+            int x = (int) (m % 8);
+            boolean up = ((m / 8) & 1) == 0;
+            int fromY = up ? 6 : 5;
+            int toY = up ? 5 : 6;
+            Piece pawn = board.getPiece(x, fromY);
+            board.setPiece(x, toY, pawn);
+            board.setPiece(x, fromY, null);
+            long start = System.nanoTime();
+            broadcast.publish(board, fromY * 8 + x, toY * 8 + x, Board.pieceIndex(pawn), MoveBroadcast.NO_PIECE, false);
+            publish.record(System.nanoTime() - start);
+            if ((m & 1023) == 0) {
+                long until = System.nanoTime() + 20_000;
+                while (System.nanoTime() < until) Thread.onSpinWait();
+            }
+        }
+        running.set(false);
+        for (Thread poller : pollers) poller.join();
+
+        byte[] expected = board.squares();
+        int mismatched = 0;
+        int gaps = 0;
+        for (Spectator spectator : spectators) {
+            if (!Arrays.equals(expected, spectator.squares)) mismatched++;
+            if (spectator.gap) gaps++;
+        }
+        System.out.println(readers + " readers on " + threads + " threads, " + moves + " moves: " + publish);
+        if (readers > 0) {
+            System.out.println("  conflations " + broadcast.getConflations() + ", wrong final position " + mismatched + ", gaps " + gaps);
+        }
+    }
+}
@@ -1,39 +1,70 @@
 import java.util.Scanner;
-import java.time.Instant;
-import java.time.Duration;
+import jdk.jfr.EventType;
 
 public class ChessGame {
+    private static final EventType GAME_END_TYPE = EventType.getEventType(GameEvents.GameEnd.class);
+
     private Player whitePlayer;
     private Player blackPlayer;
-    private Board board;
+    private final Board board;
     private boolean isWhiteTurn;
-    private Instant startTime;
+    private long startMillis;
+    private long durationMillis;
+    private long turnStart;
+    private int moveCount;
+    private boolean finished;
+    private Player winner; // null with finished set means a draw
+    private GameEvents.GameEnd gameEvent; // only allocated while the event type is enabled
+    private final MoveBroadcast broadcast;
+    private TrafficRecorder recorder; // set by start() while a trace is being recorded
+    private long traceGame;
 
     public ChessGame(Player white, Player black) {
         this.whitePlayer = white;
         this.blackPlayer = black;
         this.board = new Board();
         this.isWhiteTurn = true;
+        this.broadcast = new MoveBroadcast(board, 256);
+    }
+
+    // Reuses this game for a new pairing without allocating; see GamePool
+    public void reset(Player white, Player black) {
+        this.whitePlayer = white;
+        this.blackPlayer = black;
+        this.isWhiteTurn = true;
+        this.moveCount = 0;
+        this.finished = false;
+        this.winner = null;
+        this.gameEvent = null;
+        this.recorder = null;
+        board.reset();
+        broadcast.reset(board);
+    }
+
+    // Spectators attach with getBroadcast().newReader() and poll at their own pace; a reader stops
+    // (isFinished) when a pooled game is reset for its next pairing
+    public MoveBroadcast getBroadcast() {
+        return broadcast;
     }
 
     public GameResult play(Scanner scanner) {
         System.out.println("Starting game: " + whitePlayer.getName() + " (White) vs " + blackPlayer.getName() + " (Black)");
-        this.startTime = Instant.now();
-        
+        start();
+
         while (true) {
             board.printBoard();
             Player currentPlayer = isWhiteTurn ? whitePlayer : blackPlayer;
             System.out.println(currentPlayer.getName() + "'s turn (" + (isWhiteTurn ? "White" : "Black") + ")");
             System.out.println("Enter move (e.g., 'e2 e4') or 'resign' or 'draw':");
-            
+
             String input = scanner.nextLine().trim();
             if (input.equalsIgnoreCase("resign")) {
-                long duration = Duration.between(startTime, Instant.now()).toMillis();
-                return new GameResult(isWhiteTurn ? blackPlayer : whitePlayer, duration);
+                resign();
+                return toResult();
             }
             if (input.equalsIgnoreCase("draw")) {
-                long duration = Duration.between(startTime, Instant.now()).toMillis();
-                return new GameResult(null, duration);
+                agreeDraw();
+                return toResult();
             }
 
             // Parse move
@@ -51,31 +82,189 @@ public class ChessGame {
                 continue;
             }
 
-            // Check if move is valid and execute
-            Piece target = board.getPiece(end[0], end[1]);
-            boolean isKingCapture = target instanceof King;
-            
-            if (board.movePiece(start[0], start[1], end[0], end[1])) {
-                if (isKingCapture) {
+            if (move(start[0], start[1], end[0], end[1])) {
+                if (finished) {
                     System.out.println("King captured! Game over.");
-                    long duration = Duration.between(startTime, Instant.now()).toMillis();
-                    return new GameResult(currentPlayer, duration);
+                    return toResult();
                 }
-                isWhiteTurn = !isWhiteTurn;
             } else {
                 System.out.println("Invalid move.");
             }
         }
     }
 
+    // Starts the clock; play() calls this, automated games call it before their first move
+    public void start() {
+        this.startMillis = System.currentTimeMillis();
+        this.turnStart = System.nanoTime();
+        this.moveCount = 0;
+        this.recorder = TrafficRecorder.active();
+        if (recorder != null) traceGame = recorder.gameStarted(whitePlayer, blackPlayer);
+
+        GameEvents.GameStart startEvent = new GameEvents.GameStart();
+        if (startEvent.shouldCommit()) {
+            startEvent.white = whitePlayer.getName();
+            startEvent.black = blackPlayer.getName();
+            startEvent.commit();
+        }
+        if (GAME_END_TYPE.isEnabled()) {
+            gameEvent = new GameEvents.GameEnd();
+            gameEvent.begin();
+        }
+    }
+
+    // Plays a move for the side to move; returns false if the board rejected it.
+    // Capturing the king ends the game in the mover's favour.
+    public boolean move(int startX, int startY, int endX, int endY) {
+        if (!onBoard(startX, startY, endX, endY)) return false;
+        trace(isWhiteTurn, true, startX, startY, endX, endY);
+        if (finished) return false;
+        return apply(isWhiteTurn, true, startX, startY, endX, endY);
+    }
+
+    // Real-time games (see RealTimeGame): either side may move at any time, so the turn is neither
+    // checked nor advanced, but the piece has to belong to the mover
+    public boolean moveAs(boolean asWhite, int startX, int startY, int endX, int endY) {
+        if (!onBoard(startX, startY, endX, endY)) return false;
+        trace(asWhite, false, startX, startY, endX, endY);
+        Piece mover = board.getPiece(startX, startY);
+        if (finished || mover == null || mover.isWhite() != asWhite) return false;
+        return apply(asWhite, false, startX, startY, endX, endY);
+    }
+
+    // Records the attempt before any check can refuse it, so the trace holds refused moves too; only
+    // off-board squares, which the trace cannot encode, go unrecorded
+    private void trace(boolean asWhite, boolean turnBased, int startX, int startY, int endX, int endY) {
+        if (recorder != null) {
+            recorder.moveAttempted(traceGame, startY * 8 + startX, endY * 8 + endX, !turnBased, asWhite);
+        }
+    }
+
+    private boolean apply(boolean asWhite, boolean turnBased, int startX, int startY, int endX, int endY) {
+        Player currentPlayer = asWhite ? whitePlayer : blackPlayer;
+        Piece mover = board.getPiece(startX, startY);
+        Piece target = board.getPiece(endX, endY);
+        boolean isKingCapture = target instanceof King;
+
+        GameEvents.Move moveEvent = new GameEvents.Move();
+        moveEvent.begin();
+        boolean applied = board.movePiece(startX, startY, endX, endY);
+        moveEvent.end();
+        if (moveEvent.shouldCommit()) {
+            moveEvent.player = currentPlayer.getName();
+            moveEvent.move = formatSquare(startX, startY) + " " + formatSquare(endX, endY);
+            moveEvent.applied = applied;
+            moveEvent.validationNanos = board.getLastValidationNanos();
+            moveEvent.commit();
+        }
+        if (!applied) return false;
+
+        moveCount++;
+        broadcast.publish(board, startY * 8 + startX, endY * 8 + endX, Board.pieceIndex(mover),
+                target == null ? MoveBroadcast.NO_PIECE : Board.pieceIndex(target), isKingCapture);
+        if (isKingCapture) {
+            finish(currentPlayer);
+            return true;
+        }
+        if (turnBased) {
+            isWhiteTurn = !isWhiteTurn;
+            Metrics.GAME_TURN.recordSince(turnStart);
+            turnStart = System.nanoTime();
+        }
+        return true;
+    }
+
+    private static boolean onBoard(int startX, int startY, int endX, int endY) {
+        return ((startX | startY | endX | endY) & ~7) == 0;
+    }
+
+    // The side to move gives up
+    public void resign() {
+        resign(isWhiteTurn);
+    }
+
+    // The given side gives up. Real-time games need this: moveAs never advances the turn, so
+    // isWhiteTurn says nothing about who resigned.
+    public void resign(boolean asWhite) {
+        if (finished) return;
+        if (recorder != null) recorder.gameResigned(traceGame, asWhite);
+        broadcast.publishEnd(board);
+        finish(asWhite ? blackPlayer : whitePlayer);
+    }
+
+    public void agreeDraw() {
+        if (finished) return;
+        if (recorder != null) recorder.gameDrawn(traceGame);
+        broadcast.publishEnd(board);
+        finish(null);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Null for a draw or an unfinished game
+    public Player getWinner() {
+        return winner;
+    }
+
+    public Player getWhitePlayer() {
+        return whitePlayer;
+    }
+
+    public Player getBlackPlayer() {
+        return blackPlayer;
+    }
+
+    public boolean isWhiteTurn() {
+        return isWhiteTurn;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public long getDurationMillis() {
+        return finished ? durationMillis : System.currentTimeMillis() - startMillis;
+    }
+
+    public GameResult toResult() {
+        return new GameResult(winner, getDurationMillis());
+    }
+
+    private void finish(Player winner) {
+        this.finished = true;
+        this.winner = winner;
+        this.durationMillis = System.currentTimeMillis() - startMillis;
+        if (gameEvent != null) {
+            gameEvent.end();
+            if (gameEvent.shouldCommit()) {
+                gameEvent.white = whitePlayer.getName();
+                gameEvent.black = blackPlayer.getName();
+                gameEvent.winner = winner == null ? null : winner.getName();
+                gameEvent.moves = moveCount;
+                gameEvent.commit();
+            }
+            gameEvent = null;
+        }
+    }
+
+    private static String formatSquare(int x, int y) {
+        return "" + (char) ('a' + x) + (8 - y);
+    }
+
     private int[] parseCoordinate(String coord) {
         if (coord.length() != 2) return null;
         char col = coord.charAt(0);
         char row = coord.charAt(1);
-        
+
         int x = col - 'a';
         int y = 8 - (row - '0'); // '8' -> 0, '1' -> 7
-        
+
         if (x < 0 || x > 7 || y < 0 || y > 7) return null;
         return new int[]{x, y};
     }
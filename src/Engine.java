@@ -0,0 +1,355 @@
+// Alpha-beta searcher for the computer players, playing on the tree's own Board. The goal is the
+// same as in ChessGame: capturing the king wins, and there is no check, castling, en passant or
+// promotion. Moves are generated per piece and every candidate is confirmed with Piece.isValidMove,
+// so anything the engine plays is accepted by Board.movePiece. On top of the board's rules the
+// engine never captures its own pieces, sliding pieces (queens included) need a clear line, and
+// pawns only push onto empty squares; the same rules referee SprtMatch.
+//
+// Moves are packed like RealTimeGame's: from | to << 6, with squares numbered y * 8 + x.
+public class Engine {
+    public static final int NO_MOVE = -1;
+    public static final int MATE = 1_000_000; // score for capturing the king, less the plies it takes
+    public static final int MAX_MOVES = 256;
+    private static final int MAX_PLY = 128;
+    private static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // Indexed by pieceType(): king, queen, rook, bishop, knight, pawn
+    private static final int[] VALUES = {20_000, 900, 500, 330, 320, 100};
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_STEPS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    private static final int[][] ROOK_RAYS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] BISHOP_RAYS = {{1, 1}, {-1, 1}, {-1, -1}, {1, -1}};
+
+    public interface IterationListener {
+        // Called after each completed iteration of the iterative deepening loop
+        void onIteration(int depth, int score, long nodes, long elapsedMillis, int bestMove);
+    }
+
+    private final EvaluationCache cache;
+    private final int[][] moves = new int[MAX_PLY][MAX_MOVES]; // per-ply buffers, reused by every search
+    private final int[][] orderKeys = new int[MAX_PLY][MAX_MOVES];
+    private volatile boolean stopped;
+    private long deadline;
+    private long nodes;
+
+    public Engine(EvaluationCache cache) {
+        this.cache = cache;
+    }
+
+    // Best move for the side to move within maxDepth plies and timeLimitMillis (0 = no limit), or
+    // NO_MOVE if that side has no move at all. The board is restored before returning.
+    public int search(Board board, boolean whiteToMove, int maxDepth, long timeLimitMillis, IterationListener listener) {
+        long start = System.nanoTime();
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000 : Long.MAX_VALUE;
+        stopped = false;
+        nodes = 0;
+
+        int[] rootMoves = moves[0];
+        int count = generateMoves(board, whiteToMove, rootMoves);
+        if (count == 0) return NO_MOVE;
+        orderMoves(board, rootMoves, orderKeys[0], count);
+        int best = rootMoves[0];
+
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_PLY / 2); depth++) {
+            int alpha = -MATE - 1;
+            int iterationBest = NO_MOVE;
+            for (int i = 0; i < count; i++) {
+                int move = rootMoves[i];
+                int score;
+                Piece captured = make(board, move);
+                if (captured instanceof King) {
+                    score = MATE - 1;
+                } else {
+                    score = -negamax(board, !whiteToMove, depth - 1, 1, -MATE - 1, -alpha);
+                }
+                unmake(board, move, captured);
+                if (stopped) break;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            // Moves are only counted once fully searched, and the previous best is searched first, so even
+            // an interrupted iteration's best is at least as good as the last completed one
+            if (iterationBest != NO_MOVE) {
+                best = iterationBest;
+                moveToFront(rootMoves, count, best);
+            }
+            if (stopped) break;
+            if (listener != null) {
+                listener.onIteration(depth, alpha, nodes, (System.nanoTime() - start) / 1_000_000, best);
+            }
+            if (alpha >= MATE_BOUND || alpha <= -MATE_BOUND) break; // the result can no longer change
+        }
+        return best;
+    }
+
+    // Makes a running search return as soon as possible; safe to call from any thread
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    private int negamax(Board board, boolean white, int depth, int ply, int alpha, int beta) {
+        if (depth <= 0) return quiesce(board, white, ply, alpha, beta);
+        if (outOfTime()) return 0;
+
+        long hash = board.positionHash(white);
+        int cached = cache.get(hash, depth);
+        if (cached != EvaluationCache.MISS) return cached;
+
+        int[] list = moves[ply];
+        int count = generateMoves(board, white, list);
+        if (count == 0) return evaluate(board, white); // no moves left: there is no stalemate rule, so score it statically
+        orderMoves(board, list, orderKeys[ply], count);
+
+        int alphaIn = alpha;
+        int best = -MATE - 1;
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            Piece captured = make(board, move);
+            int score = captured instanceof King
+                    ? MATE - ply - 1
+                    : -negamax(board, !white, depth - 1, ply + 1, -beta, -alpha);
+            unmake(board, move, captured);
+            if (stopped) return 0;
+            if (score > best) best = score;
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) break;
+        }
+        // Only exact scores are cached, and mate scores depend on the ply they were found at
+        if (best > alphaIn && best < beta && Math.abs(best) < MATE_BOUND) {
+            cache.put(hash, depth, best);
+        }
+        return best;
+    }
+
+    // Captures only, so the horizon never falls in the middle of an exchange
+    private int quiesce(Board board, boolean white, int ply, int alpha, int beta) {
+        if (outOfTime()) return 0;
+        int standPat = evaluate(board, white);
+        if (standPat >= beta || ply >= MAX_PLY - 1) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] list = moves[ply];
+        int count = generateMoves(board, white, list);
+        int[] keys = orderKeys[ply];
+        int captures = 0;
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (board.getPiece(to(move) & 7, to(move) >>> 3) != null) list[captures++] = move;
+        }
+        orderMoves(board, list, keys, captures);
+
+        for (int i = 0; i < captures; i++) {
+            int move = list[i];
+            Piece captured = make(board, move);
+            int score = captured instanceof King ? MATE - ply - 1 : -quiesce(board, !white, ply + 1, -beta, -alpha);
+            unmake(board, move, captured);
+            if (stopped) return 0;
+            if (score >= beta) return score;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+
+    // Counts the node and checks the clock every 2048 nodes
+    private boolean outOfTime() {
+        if ((++nodes & 2047) == 0 && System.nanoTime() > deadline) stopped = true;
+        return stopped;
+    }
+
+    // Applies the move with setPiece, bypassing the validation and metrics of Board.movePiece
+    private static Piece make(Board board, int move) {
+        int from = from(move);
+        int to = to(move);
+        Piece mover = board.getPiece(from & 7, from >>> 3);
+        Piece captured = board.getPiece(to & 7, to >>> 3);
+        board.setPiece(to & 7, to >>> 3, mover);
+        board.setPiece(from & 7, from >>> 3, null);
+        return captured;
+    }
+
+    private static void unmake(Board board, int move, Piece captured) {
+        int from = from(move);
+        int to = to(move);
+        board.setPiece(from & 7, from >>> 3, board.getPiece(to & 7, to >>> 3));
+        board.setPiece(to & 7, to >>> 3, captured);
+    }
+
+    // Captures first, most valuable victim and then least valuable attacker first; a stable
+    // insertion sort because the lists are short
+    private static void orderMoves(Board board, int[] list, int[] keys, int count) {
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            Piece victim = board.getPiece(to(move) & 7, to(move) >>> 3);
+            keys[i] = victim == null ? 0
+                    : VALUES[pieceType(victim)] * 8 - pieceType(board.getPiece(from(move) & 7, from(move) >>> 3));
+        }
+        for (int i = 1; i < count; i++) {
+            int move = list[i];
+            int key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                list[j + 1] = list[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            list[j + 1] = move;
+            keys[j + 1] = key;
+        }
+    }
+
+    private static void moveToFront(int[] list, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == move) {
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = move;
+                return;
+            }
+        }
+    }
+
+    // Fills 'out' (at least MAX_MOVES long) with every move of the given side; returns the count
+    public static int generateMoves(Board board, boolean white, int[] out) {
+        int count = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                Piece p = board.getPiece(x, y);
+                if (p == null || p.isWhite() != white) continue;
+                switch (pieceType(p)) {
+                    case 0:
+                        count = addSteps(board, p, x, y, KING_STEPS, out, count);
+                        break;
+                    case 1:
+                        count = addRays(board, p, x, y, ROOK_RAYS, out, count);
+                        count = addRays(board, p, x, y, BISHOP_RAYS, out, count);
+                        break;
+                    case 2:
+                        count = addRays(board, p, x, y, ROOK_RAYS, out, count);
+                        break;
+                    case 3:
+                        count = addRays(board, p, x, y, BISHOP_RAYS, out, count);
+                        break;
+                    case 4:
+                        count = addSteps(board, p, x, y, KNIGHT_STEPS, out, count);
+                        break;
+                    default:
+                        int direction = white ? -1 : 1;
+                        if (board.getPiece(x, y + direction) == null) {
+                            count = add(board, p, x, y, x, y + direction, out, count);
+                            if (board.getPiece(x, y + 2 * direction) == null) {
+                                count = add(board, p, x, y, x, y + 2 * direction, out, count);
+                            }
+                        }
+                }
+            }
+        }
+        return count;
+    }
+
+    // True if 'move' is one of generateMoves' moves for the side to move
+    public static boolean isPlayable(Board board, boolean white, int move) {
+        int[] list = new int[MAX_MOVES];
+        int count = generateMoves(board, white, list);
+        for (int i = 0; i < count; i++) {
+            if (list[i] == move) return true;
+        }
+        return false;
+    }
+
+    private static int addSteps(Board board, Piece p, int x, int y, int[][] steps, int[] out, int count) {
+        for (int[] step : steps) {
+            int tx = x + step[0];
+            int ty = y + step[1];
+            if (tx < 0 || tx > 7 || ty < 0 || ty > 7) continue;
+            Piece target = board.getPiece(tx, ty);
+            if (target == null || target.isWhite() != p.isWhite()) count = add(board, p, x, y, tx, ty, out, count);
+        }
+        return count;
+    }
+
+    private static int addRays(Board board, Piece p, int x, int y, int[][] rays, int[] out, int count) {
+        for (int[] ray : rays) {
+            for (int tx = x + ray[0], ty = y + ray[1]; tx >= 0 && tx <= 7 && ty >= 0 && ty <= 7; tx += ray[0], ty += ray[1]) {
+                Piece target = board.getPiece(tx, ty);
+                if (target != null && target.isWhite() == p.isWhite()) break;
+                count = add(board, p, x, y, tx, ty, out, count);
+                if (target != null) break;
+            }
+        }
+        return count;
+    }
+
+    private static int add(Board board, Piece p, int x, int y, int tx, int ty, int[] out, int count) {
+        if (ty < 0 || ty > 7 || !p.isValidMove(board, x, y, tx, ty)) return count;
+        out[count] = (y * 8 + x) | ((ty * 8 + tx) << 6);
+        return count + 1;
+    }
+
+    // Material plus small bonuses for centralised minor pieces and advanced pawns, from the point
+    // of view of the given side
+    public static int evaluate(Board board, boolean white) {
+        int score = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                Piece p = board.getPiece(x, y);
+                if (p == null) continue;
+                int type = pieceType(p);
+                int value = VALUES[type];
+                if (type == 3 || type == 4) {
+                    value += 12 - 4 * (Math.max(Math.abs(2 * x - 7), Math.abs(2 * y - 7)) / 2);
+                } else if (type == 5) {
+                    value += 6 * (p.isWhite() ? 6 - y : y - 1);
+                }
+                score += p.isWhite() == white ? value : -value;
+            }
+        }
+        return score;
+    }
+
+    // 0 king, 1 queen, 2 rook, 3 bishop, 4 knight, 5 pawn, matching Board.pieceIndex within a colour
+    static int pieceType(Piece p) {
+        if (p instanceof Pawn) return 5;
+        if (p instanceof Knight) return 4;
+        if (p instanceof Bishop) return 3;
+        if (p instanceof Rook) return 2;
+        if (p instanceof Queen) return 1;
+        return 0;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6;
+    }
+
+    // Long algebraic notation as used by UCI, e.g. "e2e4"
+    public static String formatMove(int move) {
+        return formatSquare(from(move)) + formatSquare(to(move));
+    }
+
+    // Parses "e2e4"; a trailing promotion letter is ignored because the board never promotes.
+    // Returns NO_MOVE if the text is not a move.
+    public static int parseMove(String text) {
+        if (text.length() < 4) return NO_MOVE;
+        int from = parseSquare(text.charAt(0), text.charAt(1));
+        int to = parseSquare(text.charAt(2), text.charAt(3));
+        return from < 0 || to < 0 ? NO_MOVE : from | (to << 6);
+    }
+
+    private static String formatSquare(int square) {
+        return "" + (char) ('a' + (square & 7)) + (8 - (square >>> 3));
+    }
+
+    private static int parseSquare(char file, char rank) {
+        int x = file - 'a';
+        int y = 8 - (rank - '0');
+        return x < 0 || x > 7 || y < 0 || y > 7 ? -1 : y * 8 + x;
+    }
+}
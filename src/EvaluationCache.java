@@ -0,0 +1,136 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EvaluationCache {
+    public static final int MISS = Integer.MIN_VALUE;
+    private static final int WAYS = 4;
+    private static final int STRIPES = 64;
+
+    // Process-wide instance shared by every game running in this JVM
+    public static final EvaluationCache SHARED = new EvaluationCache(1 << 18);
+
+    private final long[] keys;
+    private final int[] depths;
+    private final int[] scores;
+    private final boolean[] referenced;
+    private final byte[] hands; // CLOCK hand per set
+    private final int setMask;
+    private final Object[] locks;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EvaluationCache(int capacity) {
+        int sets = Integer.highestOneBit(Math.max(WAYS, capacity) / WAYS);
+        this.setMask = sets - 1;
+        this.keys = new long[sets * WAYS];
+        this.depths = new int[sets * WAYS];
+        this.scores = new int[sets * WAYS];
+        this.referenced = new boolean[sets * WAYS];
+        this.hands = new byte[sets];
+        Arrays.fill(depths, -1);
+        this.locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) locks[i] = new Object();
+    }
+
+    // Returns the cached score if it was searched at least as deep as requested, otherwise MISS
+    public int get(long hash, int depth) {
+        int set = setIndex(hash);
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            for (int i = base; i < base + WAYS; i++) {
+                if (depths[i] >= depth && keys[i] == hash) {
+                    referenced[i] = true;
+                    hits.increment();
+                    return scores[i];
+                }
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    public void put(long hash, int depth, int score) {
+        int set = setIndex(hash);
+        int base = set * WAYS;
+        synchronized (locks[set & (STRIPES - 1)]) {
+            int free = -1;
+            for (int i = base; i < base + WAYS; i++) {
+                if (depths[i] >= 0 && keys[i] == hash) {
+                    // Only overwrite with an equal or deeper result
+                    if (depth >= depths[i]) {
+                        depths[i] = depth;
+                        scores[i] = score;
+                    }
+                    referenced[i] = true;
+                    return;
+                }
+                if (free < 0 && depths[i] < 0) free = i;
+            }
+
+            if (free < 0) {
+                free = clockVictim(set, base);
+                evictions.increment();
+            }
+            keys[free] = hash;
+            depths[free] = depth;
+            scores[free] = score;
+            referenced[free] = false;
+        }
+    }
+
+    // Second-chance sweep: referenced entries get their bit cleared and are skipped once
+    private int clockVictim(int set, int base) {
+        int hand = hands[set];
+        while (true) {
+            int i = base + hand;
+            hand = (hand + 1) & (WAYS - 1);
+            if (referenced[i]) {
+                referenced[i] = false;
+            } else {
+                hands[set] = (byte) hand;
+                return i;
+            }
+        }
+    }
+
+    private int setIndex(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & setMask;
+    }
+
+    public void clear() {
+        for (int set = 0; set <= setMask; set++) {
+            int base = set * WAYS;
+            synchronized (locks[set & (STRIPES - 1)]) {
+                Arrays.fill(depths, base, base + WAYS, -1);
+                Arrays.fill(referenced, base, base + WAYS, false);
+            }
+        }
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        long h = getHits();
+        long total = h + getMisses();
+        double rate = total == 0 ? 0 : (h * 100.0) / total;
+        return String.format("EvaluationCache: %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                h, getMisses(), rate, getEvictions());
+    }
+}
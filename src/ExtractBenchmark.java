@@ -0,0 +1,103 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+// Times ArchiveExtractor against system tar on a .tar.gz and checks both produce the same tree. Without an
+// argument it builds a node_modules-like fixture (3000 files under paths over 100 characters plus a 30 MB
+// binary) and packs it with tar --format=pax.
+// Run with: java ExtractBenchmark [node-vX-linux-x64.tar.gz] [rounds]
+public class ExtractBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Path work = Files.createTempDirectory("extract-bench");
+        try {
+            Path archive = args.length > 0 ? Path.of(args[0]).toAbsolutePath() : buildFixture(work);
+            System.out.printf("%s: %.1f MB%n", archive.getFileName(), Files.size(archive) / (1024.0 * 1024));
+
+            long bestTar = Long.MAX_VALUE;
+            long bestJava = Long.MAX_VALUE;
+            Path tarOut = work.resolve("tar-out");
+            Path javaOut = work.resolve("java-out");
+            for (int round = 0; round < rounds; round++) {
+                deleteTree(tarOut);
+                Files.createDirectories(tarOut);
+                long start = System.nanoTime();
+                run(work, "tar", "-xzf", archive.toString(), "-C", tarOut.toString());
+                bestTar = Math.min(bestTar, System.nanoTime() - start);
+
+                deleteTree(javaOut);
+                start = System.nanoTime();
+                try (ArchiveExtractor extractor = new ArchiveExtractor(javaOut.toFile(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+                     InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(archive), 1 << 16), 1 << 16)) {
+                    extractor.extractTar(in);
+                }
+                bestJava = Math.min(bestJava, System.nanoTime() - start);
+            }
+            Map<String, Long> expected = listTree(tarOut);
+            boolean same = expected.equals(listTree(javaOut));
+            for (String file : expected.keySet()) {
+                Path a = tarOut.resolve(file);
+                if (same && Files.isRegularFile(a) && Files.mismatch(a, javaOut.resolve(file)) != -1) same = false;
+            }
+            System.out.printf("system tar:       %6.0f ms (best of %d)%n", bestTar / 1e6, rounds);
+            System.out.printf("ArchiveExtractor: %6.0f ms (best of %d), %d entries, identical: %b%n",
+                    bestJava / 1e6, rounds, expected.size(), same);
+        } finally {
+            deleteTree(work);
+        }
+    }
+
+    private static Path buildFixture(Path work) throws IOException, InterruptedException {
+        Path source = work.resolve("fixture");
+        Random random = new Random(1);
+        String deep = "node_modules/@scope/some-rather-long-package-name/node_modules/another-nested-dependency/lib/internal";
+        for (int i = 0; i < 3000; i++) {
+            Path file = source.resolve(deep + "/module-" + (i % 40) + "/file-with-a-long-descriptive-name-" + i + ".js");
+            Files.createDirectories(file.getParent());
+            StringBuilder text = new StringBuilder();
+            while (text.length() < 500 + random.nextInt(4000)) text.append("exports.value").append(random.nextInt()).append(" = 1;\n");
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] binary = new byte[30 * 1024 * 1024];
+        random.nextBytes(binary);
+        Files.createDirectories(source.resolve("bin"));
+        Files.write(source.resolve("bin/node"), binary);
+        Path archive = work.resolve("fixture.tar.gz");
+        run(source, "tar", "--format=pax", "-czf", archive.toString(), ".");
+        return archive;
+    }
+
+    private static void run(Path dir, String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).directory(dir.toFile()).inheritIO().start();
+        if (process.waitFor() != 0) throw new IOException(String.join(" ", command) + " failed");
+    }
+
+    // Relative path -> size, with -1 for directories and symlinks
+    private static Map<String, Long> listTree(Path root) throws IOException {
+        Map<String, Long> entries = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                boolean regular = Files.isRegularFile(path, java.nio.file.LinkOption.NOFOLLOW_LINKS);
+                entries.put(root.relativize(path).toString(), regular ? Files.size(path) : -1L);
+            }
+        }
+        return entries;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
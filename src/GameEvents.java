@@ -0,0 +1,75 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event types for the tournament core. Stack traces are off so they stay cheap
+// enough to leave enabled; fields are only filled in when shouldCommit() says the event is wanted.
+public class GameEvents {
+    private GameEvents() {}
+
+    @Name("chess.GameStart")
+    @Label("Game Start")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class GameStart extends Event {
+        @Label("White") String white;
+        @Label("Black") String black;
+    }
+
+    @Name("chess.GameEnd")
+    @Label("Game")
+    @Description("Spans a whole game, from the first prompt to the result")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class GameEnd extends Event {
+        @Label("White") String white;
+        @Label("Black") String black;
+        @Label("Winner") String winner; // null for a draw
+        @Label("Moves") int moves;
+    }
+
+    @Name("chess.Move")
+    @Label("Move")
+    @Description("A move submitted to a game; the event duration covers validation and application on the board, not parsing the input")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class Move extends Event {
+        @Label("Player") String player;
+        @Label("Move") String move;
+        @Label("Applied") boolean applied;
+        @Label("Validation Time") @Timespan(Timespan.NANOSECONDS) long validationNanos;
+    }
+
+    @Name("chess.BoardPrint")
+    @Label("Board Print")
+    @Description("Console output of Board.printBoard")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class BoardPrint extends Event {
+    }
+
+    @Name("chess.ResultRecorded")
+    @Label("Result Recorded")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class ResultRecorded extends Event {
+        @Label("White") String white;
+        @Label("Black") String black;
+        @Label("Winner") String winner; // null for a draw
+        @Label("Game Duration") @Timespan(Timespan.MILLISECONDS) long gameDuration;
+    }
+
+    @Name("chess.TournamentExpired")
+    @Label("Tournament Expired")
+    @Category("Chess")
+    @StackTrace(false)
+    public static class TournamentExpired extends Event {
+        @Label("Configured Duration") @Timespan(Timespan.MILLISECONDS) long durationLimit;
+        @Label("Players") int players;
+        @Label("Games") int games;
+    }
+}
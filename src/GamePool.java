@@ -0,0 +1,37 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recycles finished games so back-to-back games reuse their Board, move ring and keyframe buffers.
+// The idle list is array-backed, so acquiring and releasing a game allocates nothing once the pool
+// is warm. A released game must not be touched again by its previous owner.
+public class GamePool {
+    private final ArrayBlockingQueue<ChessGame> idle;
+    private final LongAdder created = new LongAdder();
+
+    public GamePool(int capacity) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public ChessGame acquire(Player white, Player black) {
+        ChessGame game = idle.poll();
+        if (game == null) {
+            created.increment();
+            return new ChessGame(white, black);
+        }
+        game.reset(white, black);
+        return game;
+    }
+
+    // Games beyond the pool's capacity are left to the garbage collector
+    public void release(ChessGame game) {
+        idle.offer(game);
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
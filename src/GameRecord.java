@@ -0,0 +1,29 @@
+public class GameRecord {
+    private Player white;
+    private Player black;
+    private GameResult result;
+
+    public GameRecord(Player white, Player black, GameResult result) {
+        this.white = white;
+        this.black = black;
+        this.result = result;
+    }
+
+    public Player getWhite() {
+        return white;
+    }
+
+    public Player getBlack() {
+        return black;
+    }
+
+    public GameResult getResult() {
+        return result;
+    }
+
+    // Score from White's point of view: 1 for a win, 0.5 for a draw, 0 for a loss
+    public double getWhiteScore() {
+        if (result.isDraw()) return 0.5;
+        return result.getWinner().equals(white) ? 1.0 : 0.0;
+    }
+}
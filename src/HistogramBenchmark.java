@@ -0,0 +1,62 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Measures what instrumenting a hot path costs: a bare LatencyHistogram.record, the full
+// recordSince(System.nanoTime()) pattern the call sites use (two nanoTime reads plus the record), and
+// the two nanoTime reads alone, on 1, 2 and 4 threads sharing one histogram. Reports CPU nanoseconds
+// per call after a warm-up, against the 50 ns overhead budget; CPU time rather than wall time, so
+// runs with more threads than processors are not charged for waiting their turn.
+// Run with: java HistogramBenchmark [millions of calls per thread]
+public class HistogramBenchmark {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final double BUDGET_NANOS = 50;
+
+    private static volatile long sink; // keeps the nanoTime-only loop from being optimized away
+
+    public static void main(String[] args) throws InterruptedException {
+        long calls = (args.length > 0 ? Long.parseLong(args[0]) : 20) * 1_000_000L;
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processor(s), " + calls + " calls per thread");
+        for (int threads : new int[]{1, 2, 4}) {
+            LatencyHistogram histogram = new LatencyHistogram("bench");
+            run(threads, calls / 10, histogram, 0); // warm-up for all three loops
+            run(threads, calls / 10, histogram, 1);
+            run(threads, calls / 10, histogram, 2);
+            double record = run(threads, calls, histogram, 0);
+            double recordSince = run(threads, calls, histogram, 1);
+            double clock = run(threads, calls, histogram, 2);
+            System.out.printf("%d thread(s): record %.1f ns, recordSince(nanoTime()) %.1f ns (%s the %.0f ns budget), nanoTime pair %.1f ns%n",
+                    threads, record, recordSince, recordSince <= BUDGET_NANOS ? "within" : "over", BUDGET_NANOS, clock);
+        }
+    }
+
+    // Returns the mean CPU nanoseconds per call over all threads
+    private static double run(int threads, long calls, LatencyHistogram histogram, int mode) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long[] elapsed = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                long start = THREADS.getCurrentThreadCpuTime();
+                long acc = 0;
+                for (long i = 0; i < calls; i++) {
+                    if (mode == 0) {
+                        histogram.record(i & 0xFFFFF); // values up to ~1 ms, spread over many buckets
+                    } else if (mode == 1) {
+                        histogram.recordSince(System.nanoTime());
+                    } else {
+                        acc += System.nanoTime() - System.nanoTime();
+                    }
+                }
+                elapsed[index] = THREADS.getCurrentThreadCpuTime() - start;
+                sink += acc;
+            });
+            workers[t].start();
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += elapsed[t];
+        }
+        return total / (double) threads / calls;
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// Summarizes the chess.* events of a Flight Recorder file into per-phase latency tables.
+// Record with: java -XX:StartFlightRecording=filename=chess.jfr Main
+// Then run:    java JfrSummary chess.jfr
+public class JfrSummary {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java JfrSummary <recording.jfr>");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+
+        Map<String, List<Long>> durations = new TreeMap<>();
+        List<Long> validation = new ArrayList<>();
+        long movesApplied = 0;
+        long movesRejected = 0;
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            String name = event.getEventType().getName();
+            if (!name.startsWith("chess.")) continue;
+
+            durations.computeIfAbsent(name, k -> new ArrayList<>()).add(event.getDuration().toNanos());
+            if (name.equals("chess.Move")) {
+                if (event.getBoolean("applied")) movesApplied++; else movesRejected++;
+                validation.add(event.getLong("validationNanos"));
+            }
+        }
+
+        if (durations.isEmpty()) {
+            System.out.println("No chess.* events found in " + file);
+            return;
+        }
+
+        System.out.printf("%-24s %10s %12s %12s %12s %12s%n", "Phase", "Count", "p50 (us)", "p99 (us)", "Max (us)", "Total (ms)");
+        for (Map.Entry<String, List<Long>> e : durations.entrySet()) {
+            printRow(e.getKey(), e.getValue());
+        }
+        if (!validation.isEmpty()) {
+            printRow("  move validation", validation);
+        }
+        System.out.println();
+        System.out.println("Moves applied: " + movesApplied + ", rejected: " + movesRejected);
+    }
+
+    private static void printRow(String name, List<Long> nanos) {
+        Collections.sort(nanos);
+        long total = 0;
+        for (long n : nanos) total += n;
+        System.out.printf("%-24s %10d %12.1f %12.1f %12.1f %12.1f%n", name, nanos.size(),
+                percentile(nanos, 0.50) / 1e3, percentile(nanos, 0.99) / 1e3,
+                nanos.get(nanos.size() - 1) / 1e3, total / 1e6);
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// Decouples child-process output from disk and console I/O. Readers hand lines to offer(), which
+// never blocks: when the bounded queue is full the line is dropped and counted instead. A single
+// consumer thread writes batches to a size-rotated file and echoes them to the console.
+public class LogPipeline implements AutoCloseable {
+    private static final int BATCH_SIZE = 512;
+
+    private final BlockingQueue<String> queue;
+    private final File file;
+    private final long maxFileBytes;
+    private final int maxRotatedFiles;
+    private final boolean compressRotated;
+    private final boolean echoToConsole;
+
+    private final String[] tail;
+    private int tailNext;
+    private int tailSize;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long reportedDrops;
+
+    private final Thread consumer;
+    private volatile boolean closed;
+    private OutputStream out;
+    private long fileBytes; // encoded bytes, so rotation happens at maxFileBytes on disk
+
+    public LogPipeline(File file, int queueCapacity, long maxFileBytes, int maxRotatedFiles,
+                       boolean compressRotated, boolean echoToConsole, int tailLines) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxRotatedFiles = maxRotatedFiles;
+        this.compressRotated = compressRotated;
+        this.echoToConsole = echoToConsole;
+        this.tail = new String[Math.max(1, tailLines)];
+        this.consumer = new Thread(this::consume, "log-pipeline");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    // Called from the child's output reader; returns false if the line was dropped
+    public boolean offer(String line) {
+        if (closed || !queue.offer(line)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    // Most recent lines, oldest first
+    public synchronized List<String> tail(int lines) {
+        int n = Math.min(lines, tailSize);
+        List<String> result = new ArrayList<>(n);
+        for (int i = n; i > 0; i--) {
+            result.add(tail[Math.floorMod(tailNext - i, tail.length)]);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            consumer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder text = new StringBuilder();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                String first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    batch.add("[log] dropped " + (drops - reportedDrops) + " line(s): output arrived faster than it could be written");
+                    reportedDrops = drops;
+                }
+
+                text.setLength(0);
+                for (String line : batch) {
+                    text.append(line).append(System.lineSeparator());
+                }
+                remember(batch);
+                if (echoToConsole) {
+                    System.out.print(text);
+                }
+                write(text);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter();
+        }
+    }
+
+    private synchronized void remember(List<String> lines) {
+        for (String line : lines) {
+            tail[tailNext] = line;
+            tailNext = (tailNext + 1) % tail.length;
+            if (tailSize < tail.length) tailSize++;
+        }
+    }
+
+    private void write(CharSequence text) {
+        try {
+            if (out == null) openWriter();
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            out.flush();
+            fileBytes += bytes.length;
+            if (fileBytes >= maxFileBytes) rotate();
+        } catch (IOException e) {
+            // Keep the pipeline draining; the console echo still has the output
+            System.err.println("[log] write to " + file + " failed: " + e.getMessage());
+            closeWriter();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        out = new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024);
+        fileBytes = file.length();
+    }
+
+    private void closeWriter() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+        out = null;
+    }
+
+    // server.log -> server.log.1 (or .1.gz) -> ... -> server.log.<maxRotatedFiles>, oldest deleted
+    private void rotate() throws IOException {
+        closeWriter();
+        String suffix = compressRotated ? ".gz" : "";
+        new File(file.getPath() + "." + maxRotatedFiles + suffix).delete();
+        for (int i = maxRotatedFiles - 1; i >= 1; i--) {
+            File from = new File(file.getPath() + "." + i + suffix);
+            if (from.exists()) from.renameTo(new File(file.getPath() + "." + (i + 1) + suffix));
+        }
+
+        File first = new File(file.getPath() + ".1");
+        if (!file.renameTo(first)) {
+            throw new IOException("could not rotate " + file);
+        }
+        if (compressRotated) {
+            gzip(first, new File(first.getPath() + ".gz"));
+            first.delete();
+        }
+        openWriter();
+    }
+
+    private static void gzip(File source, File target) throws IOException {
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target), 64 * 1024)) {
+            in.transferTo(out);
+        }
+    }
+}
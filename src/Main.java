@@ -1,3 +1,5 @@
+import java.io.File;
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.List;
 
@@ -6,6 +8,27 @@ public class Main {
         System.out.println("Welcome to the Chess Tournament System");
         Scanner scanner = new Scanner(System.in);
         Tournament tournament = new Tournament();
+        GamePool gamePool = new GamePool(4);
+
+        Metrics.registerMBean();
+        String metricsPort = System.getProperty("metrics.port");
+        if (metricsPort != null) {
+            try {
+                Metrics.startHttpEndpoint(Integer.parseInt(metricsPort));
+            } catch (Exception e) {
+                System.out.println("Could not start metrics endpoint: " + e.getMessage());
+            }
+        }
+        // -DtrafficTrace=trace.bin records this session for TrafficReplay
+        String tracePath = System.getProperty("trafficTrace");
+        if (tracePath != null) {
+            try {
+                TrafficRecorder recorder = TrafficRecorder.start(new File(tracePath));
+                Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+            } catch (IOException e) {
+                System.out.println("Could not record traffic: " + e.getMessage());
+            }
+        }
         
         while (true) {
             System.out.println("\n--- Main Menu ---");
@@ -13,7 +36,8 @@ public class Main {
             System.out.println("2. Start Tournament");
             System.out.println("3. Play Game");
             System.out.println("4. View Leaderboard");
-            System.out.println("5. Exit");
+            System.out.println("5. Suggest Pairings");
+            System.out.println("6. Exit");
             System.out.print("Select an option: ");
             
             String choice = scanner.nextLine();
@@ -71,19 +95,29 @@ public class Main {
                     p1.setBusy(true);
                     p2.setBusy(true);
                     
-                    ChessGame game = new ChessGame(p1, p2);
+                    ChessGame game = gamePool.acquire(p1, p2);
                     GameResult result = game.play(scanner);
+                    gamePool.release(game);
                     tournament.recordGameResult(result, p1, p2);
                     break;
                 case "4":
                     System.out.println("\n--- Leaderboard ---");
-                    List<Player> players = tournament.getPlayers();
-                    players.sort((a, b) -> Long.compare(b.getScore(), a.getScore())); // Descending
-                    for (Player p : players) {
+                    for (Player p : tournament.getLeaderboard()) {
                         System.out.println(p);
                     }
                     break;
                 case "5":
+                    List<Pairings.Pairing> pairings = tournament.pairSwiss();
+                    if (pairings.isEmpty()) {
+                        System.out.println("Not enough idle players to pair.");
+                        break;
+                    }
+                    System.out.println("\n--- Suggested Pairings ---");
+                    for (Pairings.Pairing pairing : pairings) {
+                        System.out.println(pairing);
+                    }
+                    break;
+                case "6":
                     System.out.println("Exiting...");
                     return;
                 default:
@@ -0,0 +1,193 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class Matchmaker {
+    private static final long SWEEP_INTERVAL_MILLIS = 100;
+
+    private static class Waiting {
+        final Player player;
+        final long score;
+        final long since; // nanoTime when the player joined the queue
+
+        Waiting(Player player, long since) {
+            this.player = player;
+            this.score = player.getScore();
+            this.since = since;
+        }
+    }
+
+    private final long baseBand;       // score difference accepted immediately
+    private final long widenPerSecond; // extra difference accepted per second of waiting
+    private final long maxBand;
+    private final Consumer<Pairings.Pairing> onMatch;
+
+    // Waiting players bucketed by score / baseBand, oldest first within a bucket
+    private final TreeMap<Long, ArrayDeque<Waiting>> buckets = new TreeMap<>();
+    private final Map<Player, Waiting> waiting = new HashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public Matchmaker(long baseBand, long widenPerSecond, long maxBand, Consumer<Pairings.Pairing> onMatch) {
+        this.baseBand = Math.max(1, baseBand);
+        this.widenPerSecond = widenPerSecond;
+        this.maxBand = Math.max(this.baseBand, maxBand);
+        this.onMatch = onMatch;
+    }
+
+    // Puts an idle player in the queue, or pairs them straight away if a compatible opponent is waiting
+    public void enqueue(Player player) {
+        Pairings.Pairing pairing;
+        synchronized (this) {
+            while (true) {
+                if (player.isBusy() || waiting.containsKey(player)) return;
+                long now = System.nanoTime();
+                Waiting opponent = takeCompatible(player.getScore(), now);
+                if (opponent == null) {
+                    add(new Waiting(player, now));
+                    return;
+                }
+                // Either player may have started a game elsewhere (Main, pairSwiss) since the checks
+                if (!player.claim()) {
+                    restore(opponent);
+                    return;
+                }
+                if (opponent.player.claim()) {
+                    pairing = Pairings.balanceColors(player, opponent.player);
+                    break;
+                }
+                player.setBusy(false); // the opponent is busy and stays out of the queue; try the next one
+            }
+        }
+        onMatch.accept(pairing);
+    }
+
+    public synchronized void remove(Player player) {
+        Waiting w = waiting.get(player);
+        if (w != null) removeWaiting(w);
+    }
+
+    // Re-examines the queue in score order so players whose band has widened get paired
+    public void sweep() {
+        List<Pairings.Pairing> matched = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            Waiting previous = null;
+            List<Waiting> ordered = new ArrayList<>(waiting.size());
+            for (ArrayDeque<Waiting> bucket : buckets.values()) ordered.addAll(bucket);
+
+            for (Waiting w : ordered) {
+                if (w.player.isBusy()) {
+                    removeWaiting(w); // started a game outside the matchmaker while waiting
+                    continue;
+                }
+                if (previous != null && Math.abs(w.score - previous.score) <= allowedBand(previous, w, now)) {
+                    if (!previous.player.claim()) {
+                        removeWaiting(previous);
+                        previous = w;
+                        continue;
+                    }
+                    if (!w.player.claim()) {
+                        previous.player.setBusy(false);
+                        removeWaiting(w);
+                        continue;
+                    }
+                    removeWaiting(previous);
+                    removeWaiting(w);
+                    matched.add(Pairings.balanceColors(previous.player, w.player));
+                    previous = null;
+                } else {
+                    previous = w;
+                }
+            }
+        }
+        for (Pairings.Pairing pairing : matched) onMatch.accept(pairing);
+    }
+
+    public synchronized void start() {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "matchmaker-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    private Waiting takeCompatible(long score, long now) {
+        Map<Long, ArrayDeque<Waiting>> nearby = buckets.subMap(bucketOf(score - maxBand), true, bucketOf(score + maxBand), true);
+        Waiting best = null;
+        long bestDiff = Long.MAX_VALUE;
+        for (Iterator<ArrayDeque<Waiting>> it = nearby.values().iterator(); it.hasNext(); ) {
+            ArrayDeque<Waiting> bucket = it.next();
+            // Players who started a game outside the matchmaker are dropped instead of paired again
+            while (!bucket.isEmpty() && bucket.peekFirst().player.isBusy()) {
+                waiting.remove(bucket.pollFirst().player);
+            }
+            if (bucket.isEmpty()) {
+                it.remove();
+                continue;
+            }
+            // The head is the longest-waiting player of the bucket and therefore has the widest band
+            Waiting w = bucket.peekFirst();
+            long diff = Math.abs(w.score - score);
+            if (diff <= allowedBand(w, now) && diff < bestDiff) {
+                best = w;
+                bestDiff = diff;
+            }
+        }
+        if (best != null) removeWaiting(best);
+        return best;
+    }
+
+    private long allowedBand(Waiting a, Waiting b, long now) {
+        return Math.max(allowedBand(a, now), allowedBand(b, now));
+    }
+
+    private long allowedBand(Waiting w, long now) {
+        long waitedMillis = (now - w.since) / 1_000_000;
+        return Math.min(maxBand, baseBand + widenPerSecond * waitedMillis / 1000);
+    }
+
+    private void add(Waiting w) {
+        buckets.computeIfAbsent(bucketOf(w.score), k -> new ArrayDeque<>()).addLast(w);
+        waiting.put(w.player, w);
+    }
+
+    // Puts a player taken by takeCompatible back at the head of their bucket, keeping their wait time
+    private void restore(Waiting w) {
+        buckets.computeIfAbsent(bucketOf(w.score), k -> new ArrayDeque<>()).addFirst(w);
+        waiting.put(w.player, w);
+    }
+
+    private void removeWaiting(Waiting w) {
+        Long key = bucketOf(w.score);
+        ArrayDeque<Waiting> bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(w)) {
+            waiting.remove(w.player);
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+
+    private long bucketOf(long score) {
+        return Math.floorDiv(score, baseBand);
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cycles a field of players through the Matchmaker: every matched pair "finishes" at once and is
+// queued again by one of the client threads, so the queue sees a constant stream of newly idle
+// players. Time-to-match runs from enqueue to the match callback, for both players of each pairing,
+// and is reported after a 2 s warm-up against the 5 ms p99 target.
+// Run with: java MatchmakerBenchmark [players] [seconds] [threads]
+public class MatchmakerBenchmark {
+    private static final long TARGET_P99_NANOS = 5_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        PlayerTable table = new PlayerTable();
+        Random random = new Random(1);
+        for (int i = 0; i < players; i++) {
+            table.add("Player" + i).addScore(random.nextInt(10_000));
+        }
+
+        long[] enqueuedAt = new long[players]; // the matchmaker's lock publishes each write to the matching thread
+        LatencyHistogram timeToMatch = new LatencyHistogram("time_to_match");
+        LongAdder matches = new LongAdder();
+        ConcurrentLinkedQueue<Player> idle = new ConcurrentLinkedQueue<>(table.asList());
+        Matchmaker matchmaker = new Matchmaker(500, 500, 5_000, pairing -> {
+            long now = System.nanoTime();
+            timeToMatch.record(now - enqueuedAt[pairing.getWhite().getId()]);
+            timeToMatch.record(now - enqueuedAt[pairing.getBlack().getId()]);
+            matches.increment();
+            idle.add(pairing.getWhite());
+            idle.add(pairing.getBlack());
+        });
+        matchmaker.start();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] clients = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            clients[t] = new Thread(() -> {
+                while (running.get()) {
+                    Player player = idle.poll();
+                    if (player == null) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    player.setBusy(false); // the instant game is over
+                    enqueuedAt[player.getId()] = System.nanoTime();
+                    matchmaker.enqueue(player);
+                }
+            });
+            clients[t].start();
+        }
+
+        Thread.sleep(2000);
+        timeToMatch.reset();
+        long matchesBefore = matches.sum();
+        Thread.sleep(seconds * 1000L);
+        long matched = matches.sum() - matchesBefore;
+        running.set(false);
+        for (Thread client : clients) client.join();
+        matchmaker.stop();
+
+        long p99 = timeToMatch.getValueAtQuantile(0.99);
+        System.out.printf("%d players, %d threads, %d processor(s): %d matches in %d s (%.0f/s), %d still waiting%n",
+                players, threads, Runtime.getRuntime().availableProcessors(), matched, seconds,
+                matched / (double) seconds, matchmaker.getWaitingCount());
+        System.out.println(timeToMatch);
+        System.out.printf("p99 %.3f ms against the %.0f ms target: %s%n",
+                p99 / 1e6, TARGET_P99_NANOS / 1e6, p99 <= TARGET_P99_NANOS ? "met" : "missed");
+    }
+}
@@ -0,0 +1,125 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+public class Metrics implements MetricsMXBean {
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static HttpServer httpServer;
+
+    // Hot-path instruments, resolved once so recording is a field read plus an atomic add
+    public static final LatencyHistogram BOARD_MOVE_PIECE = histogram("board_move_piece");
+    public static final LatencyHistogram PIECE_VALIDATE_MOVE = histogram("piece_validate_move");
+    public static final LatencyHistogram GAME_TURN = histogram("game_turn");
+    public static final LatencyHistogram TOURNAMENT_RECORD_RESULT = histogram("tournament_record_result");
+    public static final LatencyHistogram TICK_JITTER = histogram("tick_jitter");
+    public static final LatencyHistogram TICK_DURATION = histogram("tick_duration");
+    public static final LongAdder MOVES_APPLIED = counter("moves_applied");
+    public static final LongAdder MOVES_REJECTED = counter("moves_rejected");
+    public static final LongAdder GAMES_RECORDED = counter("games_recorded");
+    public static final LongAdder REALTIME_MOVES_CONFLICTED = counter("realtime_moves_conflicted");
+    public static final LongAdder REALTIME_MOVES_ON_COOLDOWN = counter("realtime_moves_on_cooldown");
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static synchronized void registerMBean() {
+        try {
+            ObjectName objectName = new ObjectName("chess.tournament:type=Metrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // Serves the Prometheus text format on http://127.0.0.1:<port>/metrics
+    public static synchronized void startHttpEndpoint(int port) throws IOException {
+        if (httpServer != null) return;
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        httpServer.createContext("/metrics", exchange -> {
+            byte[] body = prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        httpServer.start();
+        System.out.println("Metrics available at http://127.0.0.1:" + port + "/metrics");
+    }
+
+    public static synchronized void stopHttpEndpoint() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    public static String prometheusText() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+            String name = "chess_" + e.getKey() + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            sb.append(name).append(' ').append(e.getValue().sum()).append('\n');
+        }
+        for (LatencyHistogram h : new TreeMap<>(HISTOGRAMS).values()) {
+            String name = "chess_" + h.getName() + "_seconds";
+            sb.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+                sb.append(name).append("{quantile=\"").append(q).append("\"} ")
+                        .append(h.getValueAtQuantile(q) / 1e9).append('\n');
+            }
+            sb.append(name).append("_sum ").append(h.getSum() / 1e9).append('\n');
+            sb.append(name).append("_count ").append(h.getCount()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        COUNTERS.forEach((name, adder) -> result.put(name, adder.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50Nanos() {
+        Map<String, Long> result = new TreeMap<>();
+        HISTOGRAMS.forEach((name, h) -> result.put(name, h.getValueAtQuantile(0.5)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99Nanos() {
+        Map<String, Long> result = new TreeMap<>();
+        HISTOGRAMS.forEach((name, h) -> result.put(name, h.getValueAtQuantile(0.99)));
+        return result;
+    }
+
+    @Override
+    public String getPrometheusText() {
+        return prometheusText();
+    }
+
+    @Override
+    public void reset() {
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+}
@@ -0,0 +1,9 @@
+import java.util.Map;
+
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+    Map<String, Long> getLatencyP50Nanos();
+    Map<String, Long> getLatencyP99Nanos();
+    String getPrometheusText();
+    void reset();
+}
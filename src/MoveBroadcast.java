@@ -0,0 +1,206 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+// Single-writer, multi-reader ring of the moves of one game. The game thread publishes without ever
+// waiting for spectators: each slot holds one packed move stamped with its sequence number, so a
+// reader can tell on its own when the writer has lapped it. Every capacity / 2 moves, and whenever
+// a pooled game is reset, the writer also copies the board into a keyframe; a reader that fell too
+// far behind skips to the latest keyframe and replays the ring from there instead of seeing every
+// intermediate move. The keyframe buffer is reused and read optimistically, so publishing never
+// allocates and never waits for a reader. A reader follows the pairing that was on the stream when
+// it attached; once a pooled game is reset for the next pairing the reader is finished.
+public class MoveBroadcast {
+    public static final int NO_PIECE = 15;
+
+    // Packed slot layout: from(6) | to(6) | piece(4) | captured(4) | game over(1) | reset(1) | sequence(40)
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final long GAME_OVER_BIT = 1L << 20;
+    private static final long RESET_BIT = 1L << 21;
+    private static final int SEQUENCE_SHIFT = 24;
+    private static final long SEQUENCE_MASK = (1L << 40) - 1;
+
+    private final AtomicLongArray ring;
+    private final int mask;
+    private final int keyframeInterval;
+    private final AtomicLong cursor = new AtomicLong(); // last published sequence; 0 is the starting position
+    private final LongAdder conflations = new LongAdder();
+
+    // Latest keyframe, written only by the game thread under the write lock. keyframeGame is the sequence of
+    // the reset marker that began the current pairing (0 for the first), so the pairing id and its first
+    // position are published together.
+    private final StampedLock keyframeLock = new StampedLock();
+    private final byte[] keyframeSquares = new byte[64];
+    private long keyframeSequence;
+    private long keyframeGame;
+    private boolean keyframeWhiteToMove;
+    private boolean whiteToMove = true; // writer side only
+
+    public interface Listener {
+        // Full position, sent when a reader attaches and whenever it is conflated forward;
+        // 'squares' belongs to the reader and is overwritten by its next position
+        void onPosition(long sequence, byte[] squares, boolean whiteToMove);
+
+        // A move in sequence order; endOfBatch marks the last move of one poll
+        void onMove(long sequence, int from, int to, int piece, int captured, boolean gameOver, boolean endOfBatch);
+    }
+
+    public MoveBroadcast(Board board, int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity < 4) {
+            throw new IllegalArgumentException("Capacity must be a power of two >= 4, got " + capacity);
+        }
+        this.ring = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.keyframeInterval = capacity / 2;
+        board.copySquares(keyframeSquares);
+        this.keyframeWhiteToMove = true;
+    }
+
+    // Game thread only. 'board' is the position after the move was applied.
+    public void publish(Board board, int from, int to, int piece, int captured, boolean gameOver) {
+        long sequence = cursor.get() + 1;
+        write(sequence, from | ((long) to << TO_SHIFT) | ((long) piece << PIECE_SHIFT)
+                | ((long) captured << CAPTURED_SHIFT) | (gameOver ? GAME_OVER_BIT : 0));
+        whiteToMove = !whiteToMove;
+        if (sequence - keyframeSequence >= keyframeInterval) {
+            writeKeyframe(board, sequence, keyframeGame);
+        }
+    }
+
+    // Starts a new pairing on the same stream. Readers attached to the previous one finish at the
+    // marker instead of being shown the next pairing's game. Game thread only.
+    public void reset(Board board) {
+        long sequence = cursor.get() + 1;
+        whiteToMove = true;
+        // A reader that attaches from here on takes the new pairing from the keyframe itself, and starts
+        // after the marker even if the marker is not in the ring yet
+        writeKeyframe(board, sequence, sequence);
+        write(sequence, RESET_BIT);
+    }
+
+    // Marks the end of a game that finished without a final move (resignation or draw)
+    public void publishEnd(Board board) {
+        publish(board, 0, 0, NO_PIECE, NO_PIECE, true);
+    }
+
+    private void write(long sequence, long payload) {
+        ring.lazySet((int) sequence & mask, payload | ((sequence & SEQUENCE_MASK) << SEQUENCE_SHIFT));
+        cursor.lazySet(sequence);
+    }
+
+    private void writeKeyframe(Board board, long sequence, long game) {
+        long stamp = keyframeLock.writeLock();
+        try {
+            board.copySquares(keyframeSquares);
+            keyframeSequence = sequence;
+            keyframeGame = game;
+            keyframeWhiteToMove = whiteToMove;
+        } finally {
+            keyframeLock.unlockWrite(stamp);
+        }
+    }
+
+    // The pairing a reader attaching now follows, read consistently with the keyframe it will start from
+    private long currentGame() {
+        while (true) {
+            long stamp = keyframeLock.tryOptimisticRead();
+            long game = keyframeGame;
+            if (keyframeLock.validate(stamp)) return game;
+            Thread.onSpinWait(); // the game thread is writing a keyframe
+        }
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public long getConflations() {
+        return conflations.sum();
+    }
+
+    public Reader newReader() {
+        return new Reader();
+    }
+
+    // One spectator's position in the stream. A reader is used by one thread at a time.
+    public class Reader {
+        private final byte[] squares = new byte[64];
+        private final long game = currentGame();
+        private long next;
+        private boolean needsPosition = true; // set until attached, and again after being lapped
+        private boolean finished;
+
+        // Delivers up to maxBatch moves, preceded by a position if the reader has to resynchronize;
+        // returns how many events were delivered
+        public int poll(Listener listener, int maxBatch) {
+            if (finished) return 0;
+            long available = cursor.get();
+            int delivered = 0;
+            // The writer may already be filling slot available + 1, which overwrites available + 1 - capacity
+            if (needsPosition || available - next >= mask) {
+                if (next > 0) conflations.increment();
+                if (!deliverKeyframe(listener)) return 0;
+                delivered++;
+            }
+
+            long last = Math.min(available, next + maxBatch - 1);
+            while (next <= last) {
+                long s = next;
+                long packed = ring.get((int) s & mask);
+                if ((packed >>> SEQUENCE_SHIFT) != (s & SEQUENCE_MASK)) {
+                    // Lapped while reading; resume from a keyframe on the next poll
+                    needsPosition = true;
+                    return delivered;
+                }
+                if ((packed & RESET_BIT) != 0) {
+                    // The next pairing starts here; this reader's game is over
+                    finished = true;
+                    return delivered;
+                }
+                listener.onMove(s, (int) packed & 63, (int) (packed >>> TO_SHIFT) & 63,
+                        (int) (packed >>> PIECE_SHIFT) & 15, (int) (packed >>> CAPTURED_SHIFT) & 15,
+                        (packed & GAME_OVER_BIT) != 0, s == last);
+                next = s + 1;
+                delivered++;
+            }
+            return delivered;
+        }
+
+        // Moves published but not yet delivered to this reader
+        public long getLag() {
+            return finished ? 0 : Math.max(0, cursor.get() - next + 1);
+        }
+
+        // True once the game was reset for another pairing; attach a new reader to follow that one
+        public boolean isFinished() {
+            return finished;
+        }
+
+        // Returns false, delivering nothing, if the keyframe already belongs to a later pairing
+        private boolean deliverKeyframe(Listener listener) {
+            long sequence;
+            long keyGame;
+            boolean white;
+            while (true) {
+                long stamp = keyframeLock.tryOptimisticRead();
+                System.arraycopy(keyframeSquares, 0, squares, 0, squares.length);
+                sequence = keyframeSequence;
+                keyGame = keyframeGame;
+                white = keyframeWhiteToMove;
+                if (keyframeLock.validate(stamp)) break;
+                Thread.onSpinWait(); // the game thread is mid-copy
+            }
+            if (keyGame != game) {
+                finished = true;
+                return false;
+            }
+            listener.onPosition(sequence, squares, white);
+            next = sequence + 1;
+            needsPosition = false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import java.util.List;
+import java.util.Random;
+
+// Times Swiss pairing on random fields after a few played rounds, so rematch avoidance has
+// opponents to skip. Run with: java PairingBenchmark [rounds]
+public class PairingBenchmark {
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            PlayerTable table = new PlayerTable();
+            Random random = new Random(1);
+            for (int i = 0; i < size; i++) {
+                table.add("Player" + i).addScore(random.nextInt(20));
+            }
+            long lastRoundNanos = 0;
+            int pairs = 0;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                List<Pairings.Pairing> pairings = Pairings.swiss(table.asList());
+                lastRoundNanos = System.nanoTime() - start;
+                pairs = pairings.size();
+                for (Pairings.Pairing pairing : pairings) {
+                    pairing.getWhite().recordGame(pairing.getBlack(), true);
+                    pairing.getBlack().recordGame(pairing.getWhite(), false);
+                    pairing.getWhite().addScore(random.nextInt(3));
+                }
+            }
+            System.out.printf("%7d players: round %d paired %d games in %.1f ms%n", size, rounds, pairs, lastRoundNanos / 1e6);
+        }
+    }
+}
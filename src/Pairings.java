@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.List;
+
+public class Pairings {
+    // How far down the standings Swiss pairing looks for an opponent that avoids a rematch
+    private static final int REMATCH_LOOKAHEAD = 8;
+
+    private Pairings() {}
+
+    public static class Pairing {
+        private final Player white;
+        private final Player black;
+
+        public Pairing(Player white, Player black) {
+            this.white = white;
+            this.black = black;
+        }
+
+        public Player getWhite() {
+            return white;
+        }
+
+        public Player getBlack() {
+            return black;
+        }
+
+        @Override
+        public String toString() {
+            return white.getName() + " (White) vs " + black.getName() + " (Black)";
+        }
+    }
+
+    public static int roundRobinRounds(int playerCount) {
+        return playerCount % 2 == 0 ? playerCount - 1 : playerCount;
+    }
+
+    // Berger table for the given 0-based round. With an odd field the player paired
+    // against the virtual bye simply sits the round out.
+    public static List<Pairing> roundRobin(List<Player> players, int round) {
+        int n = players.size() % 2 == 0 ? players.size() : players.size() + 1;
+        List<Pairing> pairings = new ArrayList<>(n / 2);
+        if (n < 2) return pairings;
+
+        int rotating = n - 1;
+        int r = round % rotating;
+        for (int i = 0; i < n / 2; i++) {
+            int a = (r + i) % rotating;
+            int b = i == 0 ? n - 1 : (r + rotating - i) % rotating;
+            if (a >= players.size() || b >= players.size()) continue; // bye
+
+            Player pa = players.get(a);
+            Player pb = players.get(b);
+            // The fixed player alternates colours each round; table pairs keep the Berger orientation
+            if (i == 0 && r % 2 == 1) {
+                pairings.add(new Pairing(pb, pa));
+            } else {
+                pairings.add(new Pairing(pa, pb));
+            }
+        }
+        return pairings;
+    }
+
+    // Greedy Swiss pairing over the idle players: standings are walked top-down and each player
+    // meets the nearest-ranked opponent they have not played yet, falling back to a rematch
+    // only when nobody within the lookahead window is fresh.
+    public static List<Pairing> swiss(List<Player> players) {
+        List<Player> idle = new ArrayList<>();
+        for (Player p : players) {
+            if (!p.isBusy()) idle.add(p);
+        }
+        idle.sort((a, b) -> Long.compare(b.getScore(), a.getScore()));
+
+        int size = idle.size();
+        boolean[] paired = new boolean[size];
+        List<Pairing> pairings = new ArrayList<>(size / 2);
+        int next = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (paired[i]) continue;
+            Player p = idle.get(i);
+
+            while (next < size && paired[next]) next++;
+            int first = -1;
+            int choice = -1;
+            int seen = 0;
+            for (int j = Math.max(i + 1, next); j < size && seen < REMATCH_LOOKAHEAD; j++) {
+                if (paired[j]) continue;
+                if (first < 0) first = j;
+                seen++;
+                if (!p.hasPlayed(idle.get(j))) {
+                    choice = j;
+                    break;
+                }
+            }
+            if (choice < 0) choice = first;
+            if (choice < 0) break; // odd player out gets a bye
+
+            paired[i] = true;
+            paired[choice] = true;
+            pairings.add(balanceColors(p, idle.get(choice)));
+        }
+        return pairings;
+    }
+
+    static Pairing balanceColors(Player a, Player b) {
+        if (a.getColorBalance() <= b.getColorBalance()) {
+            return new Pairing(a, b);
+        }
+        return new Pairing(b, a);
+    }
+}
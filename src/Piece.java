@@ -1,7 +1,9 @@
+// Pieces carry no per-square state, so each type and colour is a single shared instance
+// (e.g. Rook.WHITE); boards hold references to these flyweights instead of allocating their own.
 public abstract class Piece {
-    protected boolean isWhite;
+    protected final boolean isWhite;
 
-    public Piece(boolean isWhite) {
+    protected Piece(boolean isWhite) {
         this.isWhite = isWhite;
     }
 
@@ -14,7 +16,10 @@ public abstract class Piece {
 }
 
 class King extends Piece {
-    public King(boolean isWhite) { super(isWhite); }
+    static final King WHITE = new King(true);
+    static final King BLACK = new King(false);
+
+    private King(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "K" : "k"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         int dx = Math.abs(startX - endX);
@@ -24,7 +29,10 @@ class King extends Piece {
 }
 
 class Queen extends Piece {
-    public Queen(boolean isWhite) { super(isWhite); }
+    static final Queen WHITE = new Queen(true);
+    static final Queen BLACK = new Queen(false);
+
+    private Queen(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "Q" : "q"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         return true; // Simplified for now
@@ -32,7 +40,10 @@ class Queen extends Piece {
 }
 
 class Rook extends Piece {
-    public Rook(boolean isWhite) { super(isWhite); }
+    static final Rook WHITE = new Rook(true);
+    static final Rook BLACK = new Rook(false);
+
+    private Rook(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "R" : "r"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         return startX == endX || startY == endY;
@@ -40,7 +51,10 @@ class Rook extends Piece {
 }
 
 class Bishop extends Piece {
-    public Bishop(boolean isWhite) { super(isWhite); }
+    static final Bishop WHITE = new Bishop(true);
+    static final Bishop BLACK = new Bishop(false);
+
+    private Bishop(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "B" : "b"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         return Math.abs(startX - endX) == Math.abs(startY - endY);
@@ -48,7 +62,10 @@ class Bishop extends Piece {
 }
 
 class Knight extends Piece {
-    public Knight(boolean isWhite) { super(isWhite); }
+    static final Knight WHITE = new Knight(true);
+    static final Knight BLACK = new Knight(false);
+
+    private Knight(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "N" : "n"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         int dx = Math.abs(startX - endX);
@@ -58,7 +75,10 @@ class Knight extends Piece {
 }
 
 class Pawn extends Piece {
-    public Pawn(boolean isWhite) { super(isWhite); }
+    static final Pawn WHITE = new Pawn(true);
+    static final Pawn BLACK = new Pawn(false);
+
+    private Pawn(boolean isWhite) { super(isWhite); }
     @Override public String getSymbol() { return isWhite ? "P" : "p"; }
     @Override public boolean isValidMove(Board board, int startX, int startY, int endX, int endY) {
         int direction = isWhite ? -1 : 1;
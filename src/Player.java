@@ -1,36 +1,83 @@
+// Lightweight handle onto one row of a PlayerTable; all state lives in the table's columns.
+// Handles are created on demand, so two handles for the same player are equal but not identical.
 public class Player {
-    private String name;
-    private long score; // Score in milliseconds
-    private boolean isBusy;
+    private final PlayerTable table;
+    private final int id;
 
-    public Player(String name) {
-        this.name = name;
-        this.score = 0;
-        this.isBusy = false;
+    Player(PlayerTable table, int id) {
+        this.table = table;
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
     }
 
     public String getName() {
-        return name;
+        return table.getName(id);
     }
 
     public long getScore() {
-        return score;
+        return table.getScore(id);
     }
 
     public void addScore(long points) {
-        this.score += points;
+        table.addScore(id, points);
     }
 
     public boolean isBusy() {
-        return isBusy;
+        return table.isBusy(id);
     }
 
     public void setBusy(boolean busy) {
-        isBusy = busy;
+        table.setBusy(id, busy);
+    }
+
+    // Marks the player busy unless they already are; returns whether this call did it
+    public boolean claim() {
+        return table.claim(id);
+    }
+
+    public int getElo() {
+        return table.getElo(id);
+    }
+
+    public void setElo(int elo) {
+        table.setElo(id, elo);
+    }
+
+    public void adjustElo(int change) {
+        table.setElo(id, table.getElo(id) + change);
+    }
+
+    public boolean hasPlayed(Player opponent) {
+        return table.hasPlayed(id, opponent.id);
+    }
+
+    // Games as White minus games as Black
+    public int getColorBalance() {
+        return table.getColorBalance(id);
+    }
+
+    public void recordGame(Player opponent, boolean asWhite) {
+        table.recordGame(id, opponent.id, asWhite);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Player)) return false;
+        Player other = (Player) o;
+        return id == other.id && table == other.table;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     @Override
     public String toString() {
-        return name + " (Score: " + score + " ms)";
+        return getName() + " (Score: " + getScore() + " ms, ELO: " + getElo() + ")";
     }
 }
@@ -0,0 +1,286 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+
+// Column store for every player of a tournament. Each attribute lives in a primitive array, so a
+// scan over scores or busy flags walks contiguous memory instead of chasing one object per player;
+// Player is only a (table, id) handle over these columns. Columns are allocated in fixed pages, so
+// growing the table never copies existing entries and a concurrent writer cannot lose an update to
+// a copy. Names are stored once as UTF-8 in a byte arena with a case-insensitive hash index.
+public class PlayerTable {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int ARENA_BITS = 20;              // 1 MB name pages
+    private static final int ARENA_SIZE = 1 << ARENA_BITS;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+    private static final VarHandle BUSY_WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static class Page {
+        final long[] scores = new long[PAGE_SIZE];
+        final int[] elo = new int[PAGE_SIZE];
+        final int[] colorBalance = new int[PAGE_SIZE]; // games as White minus games as Black
+        final int[] nameRef = new int[PAGE_SIZE];      // arena page << ARENA_BITS | offset
+        final long[] busy = new long[PAGE_SIZE / 64];
+    }
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+
+    // Names: each entry is a 2-byte length followed by the UTF-8 bytes, never split across pages
+    private volatile byte[][] arena = new byte[0][];
+    private int arenaPosition = ARENA_SIZE;
+
+    // Open-addressed name index holding id + 1 (0 = empty), keyed by the lower-cased name's hash
+    private int[] nameIndex = new int[1024];
+
+    // Pairs of ids that have played each other, packed as (low id << 32 | high id); 0 = empty
+    private long[] opponentPairs = new long[1024];
+    private int opponentPairCount;
+
+    private final List<Player> view = new PlayerList();
+
+    public int size() {
+        return size;
+    }
+
+    public synchronized Player add(String name) {
+        int id = size;
+        if ((id >>> PAGE_BITS) == pages.length) {
+            Page[] grown = new Page[pages.length + 1];
+            System.arraycopy(pages, 0, grown, 0, pages.length);
+            grown[pages.length] = new Page();
+            pages = grown;
+        }
+        Page page = pages[id >>> PAGE_BITS];
+        int slot = id & PAGE_MASK;
+        page.elo[slot] = RatingSystem.INITIAL_ELO;
+        page.nameRef[slot] = storeName(name);
+        indexName(name, id);
+        size = id + 1; // publishes the filled-in row to unsynchronized readers
+        return new Player(this, id);
+    }
+
+    public Player get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Player id " + id + ", size " + size);
+        return new Player(this, id);
+    }
+
+    // Read-only list of handles in registration order; handles are created on access
+    public List<Player> asList() {
+        return view;
+    }
+
+    // First registered player with this name, ignoring case, or null
+    public synchronized Player findByName(String name) {
+        int mask = nameIndex.length - 1;
+        for (int i = nameHash(name) & mask; nameIndex[i] != 0; i = (i + 1) & mask) {
+            int id = nameIndex[i] - 1;
+            if (getName(id).equalsIgnoreCase(name)) return new Player(this, id);
+        }
+        return null;
+    }
+
+    String getName(int id) {
+        int ref = pages[id >>> PAGE_BITS].nameRef[id & PAGE_MASK];
+        byte[] data = arena[ref >>> ARENA_BITS];
+        int offset = ref & (ARENA_SIZE - 1);
+        int length = ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+        return new String(data, offset + 2, length, StandardCharsets.UTF_8);
+    }
+
+    long getScore(int id) {
+        return pages[id >>> PAGE_BITS].scores[id & PAGE_MASK];
+    }
+
+    void addScore(int id, long points) {
+        pages[id >>> PAGE_BITS].scores[id & PAGE_MASK] += points;
+    }
+
+    int getElo(int id) {
+        return pages[id >>> PAGE_BITS].elo[id & PAGE_MASK];
+    }
+
+    void setElo(int id, int elo) {
+        pages[id >>> PAGE_BITS].elo[id & PAGE_MASK] = elo;
+    }
+
+    int getColorBalance(int id) {
+        return pages[id >>> PAGE_BITS].colorBalance[id & PAGE_MASK];
+    }
+
+    boolean isBusy(int id) {
+        long word = (long) BUSY_WORD.getVolatile(pages[id >>> PAGE_BITS].busy, (id & PAGE_MASK) >>> 6);
+        return (word & (1L << id)) != 0;
+    }
+
+    // Busy flags are flipped by game threads and the matchmaker concurrently, so bits are set atomically
+    void setBusy(int id, boolean busy) {
+        long[] words = pages[id >>> PAGE_BITS].busy;
+        int word = (id & PAGE_MASK) >>> 6;
+        if (busy) {
+            BUSY_WORD.getAndBitwiseOr(words, word, 1L << id);
+        } else {
+            BUSY_WORD.getAndBitwiseAnd(words, word, ~(1L << id));
+        }
+    }
+
+    synchronized void recordGame(int id, int opponent, boolean asWhite) {
+        pages[id >>> PAGE_BITS].colorBalance[id & PAGE_MASK] += asWhite ? 1 : -1;
+        long pair = pairKey(id, opponent);
+        if (insertPair(opponentPairs, pair)) {
+            opponentPairCount++;
+            if (opponentPairCount * 2 > opponentPairs.length) {
+                long[] grown = new long[opponentPairs.length * 2];
+                for (long p : opponentPairs) {
+                    if (p != 0) insertPair(grown, p);
+                }
+                opponentPairs = grown;
+            }
+        }
+    }
+
+    synchronized boolean hasPlayed(int a, int b) {
+        long pair = pairKey(a, b);
+        int mask = opponentPairs.length - 1;
+        for (int i = mix(pair) & mask; opponentPairs[i] != 0; i = (i + 1) & mask) {
+            if (opponentPairs[i] == pair) return true;
+        }
+        return false;
+    }
+
+    // Sets the busy flag; returns false if it was already set, so two matchers cannot both claim a player
+    boolean claim(int id) {
+        long[] words = pages[id >>> PAGE_BITS].busy;
+        long previous = (long) BUSY_WORD.getAndBitwiseOr(words, (id & PAGE_MASK) >>> 6, 1L << id);
+        return (previous & (1L << id)) == 0;
+    }
+
+    // Idle players in registration order, found by scanning the busy bitmap a word at a time
+    public List<Player> idlePlayers() {
+        int n = size;
+        Page[] snapshot = pages;
+        List<Player> idle = new ArrayList<>();
+        for (int base = 0; base < n; base += 64) {
+            long[] words = snapshot[base >>> PAGE_BITS].busy;
+            long free = ~(long) BUSY_WORD.getAcquire(words, (base & PAGE_MASK) >>> 6);
+            if (n - base < 64) free &= (1L << (n - base)) - 1;
+            while (free != 0) {
+                idle.add(new Player(this, base + Long.numberOfTrailingZeros(free)));
+                free &= free - 1;
+            }
+        }
+        return idle;
+    }
+
+    // Ids ordered by score, highest first, using an LSD radix sort on the score column
+    public int[] idsByScoreDescending() {
+        int n = size;
+        int[] ids = new int[n];
+        if (n == 0) return ids;
+        long[] keys = new long[n];
+        for (int id = 0; id < n; id++) {
+            ids[id] = id;
+            keys[id] = ~(getScore(id) ^ Long.MIN_VALUE); // descending, signed
+        }
+        int[] idsOut = new int[n];
+        long[] keysOut = new long[n];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) counts[(int) (keys[i] >>> shift & 0xff) + 1]++;
+            if (counts[(int) (keys[0] >>> shift & 0xff) + 1] == n) continue; // every key shares this byte
+            for (int b = 0; b < 256; b++) counts[b + 1] += counts[b];
+            for (int i = 0; i < n; i++) {
+                int to = counts[(int) (keys[i] >>> shift & 0xff)]++;
+                keysOut[to] = keys[i];
+                idsOut[to] = ids[i];
+            }
+            long[] k = keys; keys = keysOut; keysOut = k;
+            int[] d = ids; ids = idsOut; idsOut = d;
+        }
+        return ids;
+    }
+
+    private int storeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Player name longer than " + MAX_NAME_BYTES + " bytes");
+        }
+        if (arenaPosition + 2 + bytes.length > ARENA_SIZE) {
+            byte[][] grown = new byte[arena.length + 1][];
+            System.arraycopy(arena, 0, grown, 0, arena.length);
+            grown[arena.length] = new byte[ARENA_SIZE];
+            arena = grown;
+            arenaPosition = 0;
+        }
+        byte[] data = arena[arena.length - 1];
+        int offset = arenaPosition;
+        data[offset] = (byte) (bytes.length >>> 8);
+        data[offset + 1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, data, offset + 2, bytes.length);
+        arenaPosition += 2 + bytes.length;
+        return ((arena.length - 1) << ARENA_BITS) | offset;
+    }
+
+    private void indexName(String name, int id) {
+        if ((id + 1) * 2 > nameIndex.length) {
+            int[] old = nameIndex;
+            nameIndex = new int[old.length * 2];
+            for (int entry : old) {
+                if (entry != 0) placeName(nameHash(getName(entry - 1)), entry);
+            }
+        }
+        if (findByName(name) == null) placeName(nameHash(name), id + 1);
+    }
+
+    private void placeName(int hash, int entry) {
+        int mask = nameIndex.length - 1;
+        int i = hash & mask;
+        while (nameIndex[i] != 0) i = (i + 1) & mask;
+        nameIndex[i] = entry;
+    }
+
+    private static int nameHash(String name) {
+        int h = name.toLowerCase(Locale.ROOT).hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static long pairKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private static boolean insertPair(long[] table, long pair) {
+        int mask = table.length - 1;
+        int i = mix(pair) & mask;
+        while (table[i] != 0) {
+            if (table[i] == pair) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = pair;
+        return true;
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private class PlayerList extends AbstractList<Player> implements RandomAccess {
+        @Override
+        public Player get(int index) {
+            return PlayerTable.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Compares PlayerTable with the one-object-per-player layout it replaced (the fields of the old Player,
+// kept here as ObjectPlayer): retained bytes per player, the leaderboard sort, the idle-player filter
+// and a plain score + busy scan over every handle. Every eighth player is busy.
+// Run with: java -Xmx4g PlayerTableBenchmark [players]
+public class PlayerTableBenchmark {
+    private static class ObjectPlayer {
+        final String name;
+        long score;
+        boolean busy;
+        final Set<ObjectPlayer> opponents = new HashSet<>();
+        int colorBalance;
+        int elo = 1200;
+
+        ObjectPlayer(String name) {
+            this.name = name;
+        }
+    }
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        objects(players);
+        table(players);
+        System.out.println("(" + (sink & 1) + ")");
+    }
+
+    private static void objects(int n) {
+        long before = usedMemory();
+        List<ObjectPlayer> players = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            ObjectPlayer p = new ObjectPlayer("Player" + i);
+            p.score = random.nextInt(1_000_000);
+            p.busy = (i & 7) == 0;
+            players.add(p);
+        }
+        long bytes = usedMemory() - before;
+
+        long sort = best(3, () -> {
+            List<ObjectPlayer> copy = new ArrayList<>(players);
+            copy.sort((a, b) -> Long.compare(b.score, a.score));
+            sink += copy.get(0).score;
+        });
+        long idle = best(10, () -> {
+            List<ObjectPlayer> result = new ArrayList<>();
+            for (ObjectPlayer p : players) {
+                if (!p.busy) result.add(p);
+            }
+            sink += result.size();
+        });
+        long scan = best(10, () -> {
+            for (ObjectPlayer p : players) {
+                sink += p.busy ? 0 : p.score;
+            }
+        });
+        print("objects", n, bytes, sort, idle, scan);
+        sink += players.size();
+    }
+
+    private static void table(int n) {
+        long before = usedMemory();
+        PlayerTable table = new PlayerTable();
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            Player p = table.add("Player" + i);
+            p.addScore(random.nextInt(1_000_000));
+            if ((i & 7) == 0) p.setBusy(true);
+        }
+        long bytes = usedMemory() - before;
+
+        List<Player> players = table.asList();
+        long sort = best(3, () -> sink += table.idsByScoreDescending()[0]);
+        long idle = best(10, () -> sink += table.idlePlayers().size());
+        long scan = best(10, () -> {
+            for (Player p : players) {
+                sink += p.isBusy() ? 0 : p.getScore();
+            }
+        });
+        print("PlayerTable", n, bytes, sort, idle, scan);
+        sink += table.size();
+    }
+
+    private static long best(int rounds, Runnable task) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void print(String layout, int n, long bytes, long sort, long idle, long scan) {
+        System.out.printf("%-12s %,d players: %.1f bytes/player, leaderboard sort %.0f ms, idle filter %.1f ms, score+busy scan %.1f ms%n",
+                layout, n, bytes / (double) n, sort / 1e6, idle / 1e6, scan / 1e6);
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 4; i++) System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Measures ServerProxy throughput with 1, 2 and 4 Node workers. Each worker is a stand-in HTTP server that
+// burns about 2 ms of CPU per request, the way a busy web/server.js would. Clients keep one connection
+// each and bind to different 127.0.0.x addresses, since the proxy spreads clients over slots by address.
+// Run with: java ProxyLoadBenchmark [clients] [seconds]
+public class ProxyLoadBenchmark {
+    private static final int PROXY_PORT = 3900;
+    private static final int WORKER_BASE_PORT = 3910;
+    private static final String STAND_IN = "const http = require('http');"
+            + "http.createServer((req, res) => {"
+            + "  let x = 0; const end = Date.now() + 2; while (Date.now() < end) x++;"
+            + "  res.end('ok ' + (x % 10));"
+            + "}).listen(+process.env.PORT, '127.0.0.1');";
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processor(s), " + clients + " clients, " + seconds + " s per run");
+        for (int workers : new int[]{1, 2, 4}) {
+            run(workers, clients, seconds);
+        }
+    }
+
+    private static void run(int workerCount, int clients, int seconds) throws Exception {
+        List<Process> workers = new ArrayList<>();
+        ServerProxy proxy = new ServerProxy(PROXY_PORT, workerCount);
+        try {
+            for (int slot = 0; slot < workerCount; slot++) {
+                ProcessBuilder pb = new ProcessBuilder("node", "-e", STAND_IN).inheritIO();
+                pb.environment().put("PORT", String.valueOf(WORKER_BASE_PORT + slot));
+                workers.add(pb.start());
+            }
+            for (int slot = 0; slot < workerCount; slot++) {
+                awaitPort(WORKER_BASE_PORT + slot);
+                proxy.setBackend(slot, WORKER_BASE_PORT + slot);
+            }
+            proxy.start();
+
+            AtomicLong requests = new AtomicLong();
+            AtomicLong failures = new AtomicLong();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                String address = "127.0.0." + (2 + c % 250);
+                Thread thread = new Thread(() -> {
+                    try (Socket socket = new Socket()) {
+                        socket.bind(new InetSocketAddress(address, 0));
+                        socket.connect(new InetSocketAddress("127.0.0.1", PROXY_PORT));
+                        socket.setTcpNoDelay(true);
+                        OutputStream out = socket.getOutputStream();
+                        InputStream in = socket.getInputStream();
+                        byte[] request = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+                        while (System.nanoTime() < deadline) {
+                            out.write(request);
+                            readResponse(in);
+                            requests.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) thread.join();
+            System.out.printf("%d worker(s): %7.0f req/s, %d failed client(s)%n", workerCount, requests.get() / (double) seconds, failures.get());
+        } finally {
+            proxy.stop();
+            for (Process worker : workers) {
+                worker.destroy();
+                worker.waitFor();
+            }
+        }
+    }
+
+    // Reads one response with a Content-Length body
+    private static void readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) throw new IOException("Connection closed");
+            headers.write(b);
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        long length = 0;
+        for (String line : headers.toString(StandardCharsets.US_ASCII).split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) length = Long.parseLong(line.substring(15).trim());
+        }
+        if (in.readNBytes((int) length).length < length) throw new IOException("Truncated body");
+    }
+
+    private static void awaitPort(int port) throws InterruptedException, IOException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 200);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) throw new IOException("Worker on port " + port + " did not start");
+                Thread.sleep(20);
+            }
+        }
+    }
+}
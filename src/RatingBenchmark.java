@@ -0,0 +1,40 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Times a full rating recompute over a random history, per game (period 1) and with parallel rating
+// periods. Defaults to 2M games between 100k players, the size the batch rating engine was built for.
+// Run with: java RatingBenchmark [games] [players] [games per period] [rounds]
+public class RatingBenchmark {
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int period = args.length > 2 ? Integer.parseInt(args[2]) : players / 2;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        PlayerTable table = new PlayerTable();
+        for (int i = 0; i < players; i++) table.add("Player" + i);
+        List<Player> field = table.asList();
+        Random random = new Random(1);
+        List<GameRecord> history = new ArrayList<>(games);
+        for (int g = 0; g < games; g++) {
+            Player white = field.get(random.nextInt(players));
+            Player black = field.get(random.nextInt(players));
+            int outcome = random.nextInt(3);
+            Player winner = outcome == 0 ? white : outcome == 1 ? black : null;
+            history.add(new GameRecord(white, black, new GameResult(winner, 60_000 + random.nextInt(240_000))));
+        }
+
+        RatingSystem ratings = new RatingSystem();
+        System.out.printf("%d games, %d players, %d processor(s)%n", games, players, Runtime.getRuntime().availableProcessors());
+        for (int gamesPerPeriod : new int[]{1, period}) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                ratings.recompute(field, history, gamesPerPeriod);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%7d games per period: %6.0f ms (best of %d)%n", gamesPerPeriod, best / 1e6, rounds);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class RatingSystem {
+    public static final int INITIAL_ELO = 400; // same starting rating as web/lib/Player.js
+    public static final double DEFAULT_K_PER_MINUTE = 32;
+    private static final int PARALLEL_THRESHOLD = 1024; // players per period below which forking costs more than it saves
+
+    private final double kPerMinute;
+
+    public RatingSystem() {
+        this(DEFAULT_K_PER_MINUTE);
+    }
+
+    public RatingSystem(double kPerMinute) {
+        this.kPerMinute = kPerMinute;
+    }
+
+    public double getKPerMinute() {
+        return kPerMinute;
+    }
+
+    // Mirrors calculateEloChange in web/lib/Tournament.js: K scales with the game length in minutes
+    public int eloChange(int playerElo, int opponentElo, double actualScore, long durationMillis) {
+        double k = kPerMinute * (durationMillis / 60000.0);
+        double expectedScore = 1 / (1 + Math.pow(10, (opponentElo - playerElo) / 400.0));
+        return (int) Math.round(k * (actualScore - expectedScore));
+    }
+
+    public void applyGame(GameRecord game) {
+        Player white = game.getWhite();
+        Player black = game.getBlack();
+        double whiteScore = game.getWhiteScore();
+        long duration = game.getResult().getDuration();
+
+        int whiteChange = eloChange(white.getElo(), black.getElo(), whiteScore, duration);
+        int blackChange = eloChange(black.getElo(), white.getElo(), 1 - whiteScore, duration);
+        white.adjustElo(whiteChange);
+        black.adjustElo(blackChange);
+    }
+
+    // Replays the whole history from INITIAL_ELO. Games are grouped into rating periods of
+    // gamesPerPeriod games; within a period every player's change is computed from the ratings
+    // at the start of the period, so players are updated in parallel. A period of 1 reproduces
+    // the incremental per-game updates exactly.
+    public void recompute(List<Player> players, List<GameRecord> history, int gamesPerPeriod) {
+        Map<Player, Integer> index = new HashMap<>(); // handles are equal by id, not identity
+        for (Player p : players) index.putIfAbsent(p, index.size());
+        for (GameRecord g : history) {
+            index.putIfAbsent(g.getWhite(), index.size());
+            index.putIfAbsent(g.getBlack(), index.size());
+        }
+
+        int n = index.size();
+        int games = history.size();
+        int[] white = new int[games];
+        int[] black = new int[games];
+        double[] whiteScore = new double[games];
+        long[] duration = new long[games];
+        for (int g = 0; g < games; g++) {
+            GameRecord record = history.get(g);
+            white[g] = index.get(record.getWhite());
+            black[g] = index.get(record.getBlack());
+            whiteScore[g] = record.getWhiteScore();
+            duration[g] = record.getResult().getDuration();
+        }
+
+        int[] ratings = new int[n];
+        Arrays.fill(ratings, INITIAL_ELO);
+
+        if (gamesPerPeriod <= 1) {
+            for (int g = 0; g < games; g++) {
+                int w = ratings[white[g]];
+                int b = ratings[black[g]];
+                ratings[white[g]] += eloChange(w, b, whiteScore[g], duration[g]);
+                ratings[black[g]] += eloChange(b, w, 1 - whiteScore[g], duration[g]);
+            }
+        } else {
+            // Only the players of the current period are touched, so a period costs O(its games) no matter how
+            // large the field is. Every scratch array is sized by the period and allocated once.
+            int capacity = 2 * Math.min(games, gamesPerPeriod);
+            int[] local = new int[n];                 // player -> position in 'present', or -1
+            Arrays.fill(local, -1);
+            int[] present = new int[capacity];        // players of the period in first-seen order
+            int[] count = new int[capacity + 1];
+            int[] fill = new int[capacity + 1];
+            int[] playerGames = new int[capacity];
+            int[] delta = new int[capacity];
+
+            for (int start = 0; start < games; start += gamesPerPeriod) {
+                int end = Math.min(games, start + gamesPerPeriod);
+
+                // Bucket the period's games by player (compressed rows: count[j]..count[j + 1])
+                int m = 0;
+                for (int g = start; g < end; g++) {
+                    if (local[white[g]] < 0) present[local[white[g]] = m++] = white[g];
+                    if (local[black[g]] < 0) present[local[black[g]] = m++] = black[g];
+                    count[local[white[g]] + 1]++;
+                    count[local[black[g]] + 1]++;
+                }
+                for (int j = 0; j < m; j++) count[j + 1] += count[j];
+                System.arraycopy(count, 0, fill, 0, m + 1);
+                for (int g = start; g < end; g++) {
+                    playerGames[fill[local[white[g]]]++] = g;
+                    playerGames[fill[local[black[g]]]++] = g;
+                }
+
+                IntStream rows = IntStream.range(0, m);
+                if (m >= PARALLEL_THRESHOLD) rows = rows.parallel();
+                rows.forEach(j -> {
+                    int i = present[j];
+                    int change = 0;
+                    for (int k = count[j]; k < count[j + 1]; k++) {
+                        int g = playerGames[k];
+                        boolean isWhite = white[g] == i;
+                        int opponent = isWhite ? black[g] : white[g];
+                        double score = isWhite ? whiteScore[g] : 1 - whiteScore[g];
+                        change += eloChange(ratings[i], ratings[opponent], score, duration[g]);
+                    }
+                    delta[j] = change;
+                });
+                for (int j = 0; j < m; j++) {
+                    ratings[present[j]] += delta[j];
+                    local[present[j]] = -1;
+                }
+                Arrays.fill(count, 0, m + 1, 0);
+            }
+        }
+
+        for (Map.Entry<Player, Integer> e : index.entrySet()) {
+            e.getKey().setElo(ratings[e.getValue()]);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Real-time ("kungfu") variant: both sides submit moves whenever they like and the shared
+// TickScheduler applies them once per tick. A square that receives a piece is on cooldown for
+// cooldownTicks, and its piece cannot move again until then, as in the web version.
+//
+// Moves submitted during one tick are resolved deterministically, independent of which thread got
+// there first: each side's moves keep their submission order, the two sides are interleaved
+// starting with White on even ticks and Black on odd ones, and once a move is applied its source
+// and destination squares are locked for the rest of the tick, so later moves touching them fail.
+public class RealTimeGame {
+    private static final int MAX_PENDING = 16; // per side and tick; further submissions are refused
+
+    private final ChessGame game;
+    private final int cooldownTicks;
+    private final Consumer<RealTimeGame> onFinish;
+    private final long[] readyTick = new long[64]; // first tick at which each square's piece may move
+
+    // Packed from(6) | to(6) moves waiting for the next tick, guarded by the array itself
+    private final int[][] pending = {new int[MAX_PENDING], new int[MAX_PENDING]};
+    private final int[] pendingCount = new int[2];
+    private volatile int resigning = -1; // side that asked to resign, applied on the next tick
+
+    // Tick thread scratch, reused every tick
+    private final int[][] batch = {new int[MAX_PENDING], new int[MAX_PENDING]};
+    private final int[] batchCount = new int[2];
+    private long lockedSquares; // bitboard of squares already used this tick
+
+    public RealTimeGame(ChessGame game, int cooldownTicks, Consumer<RealTimeGame> onFinish) {
+        this.game = game;
+        this.cooldownTicks = cooldownTicks;
+        this.onFinish = onFinish;
+    }
+
+    // Prepares the wrapped game for a new pairing; only while it is not registered with a scheduler
+    public void reset(Player white, Player black) {
+        game.reset(white, black);
+        Arrays.fill(readyTick, 0);
+        for (int side = 0; side < 2; side++) {
+            synchronized (pending[side]) {
+                pendingCount[side] = 0;
+            }
+        }
+        resigning = -1;
+    }
+
+    public ChessGame getGame() {
+        return game;
+    }
+
+    public boolean isFinished() {
+        return game.isFinished();
+    }
+
+    // Queues a move for the next tick; any thread may call this. Returns false if the player is
+    // not in this game, the game is over or too many moves are already waiting.
+    public boolean submit(Player player, int startX, int startY, int endX, int endY) {
+        int side;
+        if (player.equals(game.getWhitePlayer())) {
+            side = 0;
+        } else if (player.equals(game.getBlackPlayer())) {
+            side = 1;
+        } else {
+            return false;
+        }
+        if (game.isFinished() || (startX | startY | endX | endY) >>> 3 != 0) return false;
+
+        int[] queue = pending[side];
+        synchronized (queue) {
+            if (pendingCount[side] == MAX_PENDING) return false;
+            queue[pendingCount[side]++] = (startY * 8 + startX) | ((endY * 8 + endX) << 6);
+        }
+        return true;
+    }
+
+    // Gives the game up for the player's side from the next tick, so the board is only ever changed on
+    // the tick thread. Returns false if the player is not in this game or it is already over.
+    public boolean resign(Player player) {
+        if (game.isFinished()) return false;
+        if (player.equals(game.getWhitePlayer())) {
+            resigning = 0;
+        } else if (player.equals(game.getBlackPlayer())) {
+            resigning = 1;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // Called by the scheduler thread once per tick
+    void advance(long tick) {
+        if (game.isFinished()) return;
+        int resigned = resigning;
+        if (resigned >= 0) {
+            // Moves queued in the same tick are dropped with the game
+            game.resign(resigned == 0);
+            return;
+        }
+        for (int side = 0; side < 2; side++) {
+            int[] queue = pending[side];
+            synchronized (queue) {
+                System.arraycopy(queue, 0, batch[side], 0, pendingCount[side]);
+                batchCount[side] = pendingCount[side];
+                pendingCount[side] = 0;
+            }
+        }
+        if ((batchCount[0] | batchCount[1]) == 0) return;
+
+        lockedSquares = 0;
+        int first = (int) (tick & 1);
+        int rounds = Math.max(batchCount[0], batchCount[1]);
+        for (int i = 0; i < rounds && !game.isFinished(); i++) {
+            for (int k = 0; k < 2 && !game.isFinished(); k++) {
+                int side = first ^ k;
+                if (i < batchCount[side]) resolve(side, batch[side][i], tick);
+            }
+        }
+    }
+
+    void finished() {
+        if (onFinish != null) onFinish.accept(this);
+    }
+
+    private void resolve(int side, int move, long tick) {
+        int from = move & 63;
+        int to = move >>> 6;
+        long squares = (1L << from) | (1L << to);
+        if ((lockedSquares & squares) != 0) {
+            Metrics.REALTIME_MOVES_CONFLICTED.increment();
+            return;
+        }
+        if (tick < readyTick[from]) {
+            Metrics.REALTIME_MOVES_ON_COOLDOWN.increment();
+            return;
+        }
+        if (game.moveAs(side == 0, from & 7, from >>> 3, to & 7, to >>> 3)) {
+            lockedSquares |= squares;
+            readyTick[from] = 0;
+            readyTick[to] = tick + cooldownTicks;
+        }
+    }
+}
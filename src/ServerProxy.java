@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Non-blocking TCP proxy in front of the Node workers. Each client connection is pinned to one
+// worker slot (chosen from the client address, so a browser keeps talking to the same worker) for
+// its whole lifetime. Swapping the port behind a slot only affects new connections, which is what
+// makes rolling restarts possible without refusing anyone.
+public class ServerProxy implements Runnable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final int listenPort;
+    private final AtomicReferenceArray<Integer> backends;
+    private final Map<Integer, AtomicInteger> activeByPort = new ConcurrentHashMap<>();
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean running;
+
+    // One side of a proxied connection; 'peer' is the other side and 'buffer' holds bytes read
+    // from this side that have not been written to the peer yet
+    private static class Pipe {
+        final SocketChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final int backendPort;
+        Pipe peer;
+        SelectionKey key;
+        boolean inputClosed;
+        boolean closed;
+
+        Pipe(SocketChannel channel, int backendPort) {
+            this.channel = channel;
+            this.backendPort = backendPort;
+        }
+    }
+
+    public ServerProxy(int listenPort, int slots) {
+        this.listenPort = listenPort;
+        this.backends = new AtomicReferenceArray<>(slots);
+    }
+
+    public synchronized void start() throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress("0.0.0.0", listenPort), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this, "server-proxy");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (selector != null) selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Routes new connections for the slot to the given port; null takes the slot out of rotation
+    public void setBackend(int slot, Integer port) {
+        backends.set(slot, port);
+    }
+
+    public int getActiveConnections(int backendPort) {
+        AtomicInteger count = activeByPort.get(backendPort);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(500);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isConnectable()) {
+                            finishConnect((Pipe) key.attachment());
+                        } else {
+                            Pipe pipe = (Pipe) key.attachment();
+                            if (key.isReadable()) read(pipe);
+                            if (key.isValid() && key.isWritable()) write(pipe.peer);
+                        }
+                    } catch (IOException | CancelledKeyException e) {
+                        if (key.attachment() instanceof Pipe) close((Pipe) key.attachment());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[PROXY] Stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // Shutting down anyway
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = server.accept();
+        if (client == null) return;
+        client.configureBlocking(false);
+        client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        Integer port = pickBackend(client.getRemoteAddress());
+        if (port == null) {
+            client.close(); // no worker is up
+            return;
+        }
+
+        SocketChannel upstream = SocketChannel.open();
+        upstream.configureBlocking(false);
+        upstream.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        Pipe clientPipe = new Pipe(client, port);
+        Pipe upstreamPipe = new Pipe(upstream, port);
+        clientPipe.peer = upstreamPipe;
+        upstreamPipe.peer = clientPipe;
+        activeByPort.computeIfAbsent(port, p -> new AtomicInteger()).incrementAndGet();
+
+        // Client reads start once the upstream connection is established
+        try {
+            clientPipe.key = client.register(selector, 0, clientPipe);
+            if (upstream.connect(new InetSocketAddress("127.0.0.1", port))) {
+                upstreamPipe.key = upstream.register(selector, SelectionKey.OP_READ, upstreamPipe);
+                clientPipe.key.interestOps(SelectionKey.OP_READ);
+            } else {
+                upstreamPipe.key = upstream.register(selector, SelectionKey.OP_CONNECT, upstreamPipe);
+            }
+        } catch (IOException e) {
+            // A dead backend can refuse synchronously; the accept key has no Pipe for run() to clean up
+            close(clientPipe);
+        }
+    }
+
+    private void finishConnect(Pipe upstream) throws IOException {
+        if (upstream.channel.finishConnect()) {
+            upstream.key.interestOps(SelectionKey.OP_READ);
+            upstream.peer.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    // Reads from 'from' into its buffer and pushes it to the peer; stops reading while the peer is backed up
+    private void read(Pipe from) throws IOException {
+        int n = from.channel.read(from.buffer);
+        if (n < 0) {
+            from.inputClosed = true;
+            from.key.interestOps(from.key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        write(from);
+    }
+
+    // Flushes bytes buffered from 'from' to its peer
+    private void write(Pipe from) throws IOException {
+        Pipe to = from.peer;
+        from.buffer.flip();
+        to.channel.write(from.buffer);
+        boolean pending = from.buffer.hasRemaining();
+        from.buffer.compact();
+
+        if (pending) {
+            to.key.interestOps(to.key.interestOps() | SelectionKey.OP_WRITE);
+            from.key.interestOps(from.key.interestOps() & ~SelectionKey.OP_READ);
+            return;
+        }
+        to.key.interestOps(to.key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (from.inputClosed) {
+            // Propagate the half-close; once both directions are done the pair is closed
+            to.channel.shutdownOutput();
+            if (to.inputClosed) close(from);
+        } else {
+            from.key.interestOps(from.key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    // Tracked with a flag rather than isOpen(): a failed finishConnect has already closed the upstream
+    // channel, and the client side and the connection count still need cleaning up
+    private void close(Pipe pipe) {
+        if (pipe == null || pipe.closed) return;
+        pipe.closed = true;
+        closeQuietly(pipe);
+        if (pipe.peer != null) {
+            pipe.peer.closed = true;
+            closeQuietly(pipe.peer);
+        }
+        AtomicInteger count = activeByPort.get(pipe.backendPort);
+        if (count != null) count.decrementAndGet();
+    }
+
+    private void closeQuietly(Pipe pipe) {
+        try {
+            if (pipe.key != null) pipe.key.cancel();
+            pipe.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    private Integer pickBackend(SocketAddress client) {
+        int slots = backends.length();
+        int start = 0;
+        if (client instanceof InetSocketAddress) {
+            start = Math.floorMod(((InetSocketAddress) client).getAddress().hashCode(), slots);
+        }
+        // Sticky slot first, then the next live one if that worker is restarting
+        for (int i = 0; i < slots; i++) {
+            Integer port = backends.get((start + i) % slots);
+            if (port != null) return port;
+        }
+        return null;
+    }
+}
@@ -1,17 +1,28 @@
 import java.io.*;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.URL;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.zip.GZIPInputStream;
 
 public class ServerRestarter {
 
     private static final int PORT = 3000;
-    private static Process serverProcess;
     
     // OS Detection
     private static final String OS_NAME = System.getProperty("os.name").toLowerCase();
@@ -23,6 +34,15 @@ public class ServerRestarter {
     private static final String NODE_VERSION = "18.16.0";
     private static final String NODE_DIR_NAME = getNodeDirName();
     private static final String NODE_DOWNLOAD_URL = getNodeDownloadUrl();
+    private static final String NODE_SHASUMS_URL = "https://nodejs.org/dist/v" + NODE_VERSION + "/SHASUMS256.txt";
+    // Installing a runtime whose checksum could not be fetched needs -DallowUnverifiedNode=true
+    private static final boolean ALLOW_UNVERIFIED_NODE = Boolean.getBoolean("allowUnverifiedNode");
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int EXTRACT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    // Records what the last successful setup found so warm starts can skip probing and npm install
+    private static final File MANIFEST_FILE = new File("node_runtime" + File.separator + "setup-manifest.properties");
+    private static final Properties manifest = new Properties();
     
     private static String nodePath = null;
     private static String npmPath = null;
@@ -36,6 +56,9 @@ public class ServerRestarter {
         System.out.println();
 
         try {
+            long setupStart = System.nanoTime();
+            loadManifest(MANIFEST_FILE, manifest);
+
             // Step 1: Ensure Node.js is available
             if (!ensureNodeInstalled()) {
                 System.err.println("FATAL: Could not set up Node.js. Exiting.");
@@ -47,23 +70,26 @@ public class ServerRestarter {
                 System.err.println("FATAL: Could not install dependencies. Exiting.");
                 return;
             }
+            System.out.println("  Setup checks took " + (System.nanoTime() - setupStart) / 1_000_000 + " ms");
 
-            // Step 3: Kill any existing server and start fresh
+            // Step 3: Clear out leftovers from earlier runs, then start the proxy and workers
             killExistingServer();
             startServer();
+            Runtime.getRuntime().addShutdownHook(new Thread(ServerRestarter::stopServer));
 
             // Keep running for restart capability
             System.out.println("\n✓ Server started successfully!");
-            System.out.println("Press Enter to restart, or Ctrl+C to exit.");
+            System.out.println("Press Enter for a rolling restart, or Ctrl+C to exit.");
             
             BufferedReader consoleReader = new BufferedReader(new InputStreamReader(System.in));
             while (true) {
                 String input = consoleReader.readLine();
                 if (input != null) {
-                    System.out.println("\nRestarting server...");
-                    killExistingServer();
-                    startServer();
-                    System.out.println("✓ Server restarted. Press Enter to restart again.");
+                    System.out.println("\nRestarting workers one at a time...");
+                    long restartStart = System.nanoTime();
+                    rollingRestart();
+                    System.out.println("✓ Server restarted in " + (System.nanoTime() - restartStart) / 1_000_000
+                            + " ms. Press Enter to restart again.");
                 }
             }
 
@@ -106,6 +132,14 @@ public class ServerRestarter {
     private static boolean ensureNodeInstalled() {
         System.out.println("[1/3] Checking for Node.js...");
         
+        // Reuse the runtime from the last successful setup if its binary is unchanged
+        if (nodeUnchanged(manifest)) {
+            nodePath = manifest.getProperty("node.path");
+            npmPath = manifest.getProperty("npm.path");
+            System.out.println("  ✓ Node.js unchanged since last setup: " + nodePath);
+            return true;
+        }
+        
         // Check local node_runtime first
         File nodeRuntimeDir = new File("node_runtime");
         File localNodeDir = new File(nodeRuntimeDir, NODE_DIR_NAME);
@@ -120,66 +154,74 @@ public class ServerRestarter {
             nodePath = localNode.getAbsolutePath();
             npmPath = localNpm.getAbsolutePath();
             System.out.println("  ✓ Found local Node.js: " + nodePath);
+            recordNode(localNode);
             return true;
         }
         
         // Check system PATH
-        if (isCommandAvailable("node")) {
+        File systemNode = findOnPath("node");
+        if (systemNode != null) {
             nodePath = "node";
             npmPath = "npm";
             System.out.println("  ✓ Found Node.js in system PATH");
+            recordNode(systemNode);
             return true;
         }
         
         // Need to download Node.js
         System.out.println("  ✗ Node.js not found. Downloading...");
-        return downloadAndExtractNode(nodeRuntimeDir, localNodeDir);
+        if (!downloadAndExtractNode(nodeRuntimeDir, localNodeDir)) {
+            return false;
+        }
+        recordNode(localNode);
+        return true;
     }
 
-    private static boolean isCommandAvailable(String command) {
-        try {
-            ProcessBuilder pb;
-            if (IS_WINDOWS) {
-                pb = new ProcessBuilder("cmd.exe", "/c", "where", command);
-            } else {
-                pb = new ProcessBuilder("which", command);
+    // Resolves a command against PATH in-process instead of forking which/where
+    private static File findOnPath(String command) {
+        String path = System.getenv("PATH");
+        if (path == null) return null;
+        String[] names = IS_WINDOWS ? new String[]{command + ".exe", command + ".cmd"} : new String[]{command};
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) continue;
+            for (String name : names) {
+                File candidate = new File(dir, name);
+                if (candidate.isFile() && candidate.canExecute()) {
+                    return candidate;
+                }
             }
-            Process p = pb.start();
-            int exitCode = p.waitFor();
-            return exitCode == 0;
-        } catch (Exception e) {
-            return false;
         }
+        return null;
     }
 
     private static boolean downloadAndExtractNode(File nodeRuntimeDir, File targetDir) {
+        // Extract into a staging directory so a failed or tampered download never leaves a half-installed runtime
+        File stagingDir = new File(nodeRuntimeDir, ".staging");
         try {
             // Create node_runtime directory
             if (!nodeRuntimeDir.exists()) {
                 nodeRuntimeDir.mkdirs();
             }
+            deleteRecursively(stagingDir);
+            stagingDir.mkdirs();
 
-            String fileName = IS_WINDOWS ? "node.zip" : "node.tar.gz";
-            File downloadFile = new File(nodeRuntimeDir, fileName);
+            String archiveName = NODE_DOWNLOAD_URL.substring(NODE_DOWNLOAD_URL.lastIndexOf('/') + 1);
+            String expectedSha256 = expectedChecksum(NODE_SHASUMS_URL, archiveName, ALLOW_UNVERIFIED_NODE);
 
-            // Download
+            // Download and extract in a single pass
             System.out.println("  Downloading from: " + NODE_DOWNLOAD_URL);
             System.out.println("  This may take a few minutes...");
-            
-            downloadFile(NODE_DOWNLOAD_URL, downloadFile);
-            System.out.println("  ✓ Download complete: " + formatSize(downloadFile.length()));
 
-            // Extract
-            System.out.println("  Extracting...");
-            if (IS_WINDOWS) {
-                extractZip(downloadFile, nodeRuntimeDir);
-            } else {
-                extractTarGz(downloadFile, nodeRuntimeDir);
-            }
-            System.out.println("  ✓ Extraction complete");
+            long archiveSize = downloadAndExtract(NODE_DOWNLOAD_URL, expectedSha256, stagingDir, IS_WINDOWS);
+            System.out.println("  ✓ Download and extraction complete: " + formatSize(archiveSize));
 
-            // Clean up download file
-            downloadFile.delete();
+            File extracted = new File(stagingDir, targetDir.getName());
+            if (!extracted.isDirectory()) {
+                System.err.println("  ✗ Archive did not contain " + targetDir.getName());
+                return false;
+            }
+            deleteRecursively(targetDir);
+            Files.move(extracted.toPath(), targetDir.toPath());
 
             // Verify
             String nodeExe = IS_WINDOWS ? "node.exe" : "bin/node";
@@ -208,195 +250,284 @@ public class ServerRestarter {
             System.err.println("  ✗ Failed to download/extract Node.js: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            try {
+                deleteRecursively(stagingDir);
+            } catch (IOException e) {
+                // Leftover staging files are cleared on the next attempt
+            }
         }
     }
 
-    private static void downloadFile(String urlStr, File destination) throws IOException {
+    private static HttpURLConnection openConnection(String urlStr) throws IOException {
         URL url = new URL(urlStr);
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
         conn.setRequestProperty("User-Agent", "Mozilla/5.0");
         conn.setConnectTimeout(30000);
         conn.setReadTimeout(60000);
+        return conn;
+    }
 
-        long totalSize = conn.getContentLengthLong();
+    // Fails closed: without a published checksum the download is refused unless allowUnverified is set
+    static String expectedChecksum(String shasumsUrl, String archiveName, boolean allowUnverified) throws IOException {
+        String expected = fetchExpectedSha256(shasumsUrl, archiveName);
+        if (expected != null) return expected;
+        if (!allowUnverified) {
+            throw new IOException("Could not read " + archiveName + " from " + shasumsUrl
+                    + "; refusing an unverified download (-DallowUnverifiedNode=true overrides)");
+        }
+        System.out.println("  ! Could not read " + archiveName + " from SHASUMS256.txt, installing unverified");
+        return null;
+    }
 
-        try (InputStream in = conn.getInputStream();
-             FileOutputStream out = new FileOutputStream(destination)) {
-            
-            byte[] buffer = new byte[8192];
-            long downloaded = 0;
-            int bytesRead;
-            int lastProgress = 0;
-
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
-                downloaded += bytesRead;
-                
-                if (totalSize > 0) {
-                    int progress = (int) ((downloaded * 100) / totalSize);
-                    if (progress >= lastProgress + 10) {
-                        System.out.print("  " + progress + "%...");
-                        lastProgress = progress;
+    private static String fetchExpectedSha256(String shasumsUrl, String archiveName) {
+        try {
+            HttpURLConnection conn = openConnection(shasumsUrl);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split("\\s+");
+                    if (parts.length == 2 && parts[1].equals(archiveName)) {
+                        return parts[0];
                     }
                 }
+            } finally {
+                conn.disconnect();
             }
-            System.out.println();
+        } catch (IOException e) {
+            // Fall through: expectedChecksum decides whether an unverified download is acceptable
         }
+        return null;
     }
 
-    private static void extractZip(File zipFile, File destDir) throws IOException {
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                File file = new File(destDir, entry.getName());
-                if (entry.isDirectory()) {
-                    file.mkdirs();
-                } else {
-                    file.getParentFile().mkdirs();
-                    try (FileOutputStream fos = new FileOutputStream(file)) {
-                        byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
-                    }
+    // Streams the HTTP body straight into the extractor while hashing the raw archive bytes.
+    // Returns the archive size; throws if expectedSha256 is given and does not match.
+    static long downloadAndExtract(String urlStr, String expectedSha256, File destDir, boolean isZip) throws IOException {
+        HttpURLConnection conn = openConnection(urlStr);
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+
+        try (InputStream body = conn.getInputStream()) {
+            ProgressInputStream progress = new ProgressInputStream(
+                    new BufferedInputStream(body, STREAM_BUFFER_SIZE), conn.getContentLengthLong());
+            DigestInputStream in = new DigestInputStream(progress, sha256);
+
+            if (isZip) {
+                extractZip(in, destDir);
+            } else {
+                extractTarGz(in, destDir);
+            }
+
+            // Drain trailing padding the extractor did not need so the digest covers the whole archive
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+            System.out.println();
+
+            if (expectedSha256 != null) {
+                String actual = toHex(sha256.digest());
+                if (!actual.equalsIgnoreCase(expectedSha256)) {
+                    throw new IOException("SHA-256 mismatch: expected " + expectedSha256 + ", got " + actual);
                 }
-                zis.closeEntry();
+                System.out.println("  ✓ SHA-256 verified");
             }
+            return progress.getCount();
+        } finally {
+            conn.disconnect();
         }
     }
 
-    private static void extractTarGz(File tarGzFile, File destDir) throws IOException {
-        // Use system tar command if available (much more reliable)
+    private static void extractZip(InputStream archive, File destDir) throws IOException {
+        // The stream is not closed here: the caller still drains and hashes it
+        try (ArchiveExtractor extractor = new ArchiveExtractor(destDir, EXTRACT_THREADS)) {
+            extractor.extractZip(archive);
+        }
+    }
+
+    private static void extractTarGz(InputStream archive, File destDir) throws IOException {
+        // Pipe into system tar if available (much more reliable)
+        Process p = null;
         try {
-            ProcessBuilder pb = new ProcessBuilder("tar", "-xzf", tarGzFile.getAbsolutePath(), "-C", destDir.getAbsolutePath());
+            ProcessBuilder pb = new ProcessBuilder("tar", "-xzf", "-", "-C", destDir.getAbsolutePath());
             pb.redirectErrorStream(true);
-            Process p = pb.start();
-            
-            // Read output
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println("  [tar] " + line);
-                }
-            }
-            
-            int exitCode = p.waitFor();
-            if (exitCode == 0) {
-                return; // Success
-            }
-        } catch (Exception e) {
+            pb.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+            p = pb.start();
+        } catch (IOException e) {
             System.out.println("  System tar not available, using built-in extraction...");
         }
-        
-        // Fallback to Java-based extraction
-        try (FileInputStream fis = new FileInputStream(tarGzFile);
-             GZIPInputStream gzis = new GZIPInputStream(fis)) {
-            extractTar(gzis, destDir);
-        }
-    }
 
-    private static void extractTar(InputStream tarStream, File destDir) throws IOException {
-        byte[] header = new byte[512];
-        
-        while (true) {
-            int read = readFully(tarStream, header);
-            if (read < 512) break;
-            
-            // Check for empty block (end of archive)
-            boolean isEmpty = true;
-            for (int i = 0; i < 512; i++) {
-                if (header[i] != 0) {
-                    isEmpty = false;
-                    break;
+        if (p != null) {
+            try (OutputStream tarIn = p.getOutputStream()) {
+                byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                int len;
+                while ((len = archive.read(buffer)) != -1) {
+                    tarIn.write(buffer, 0, len);
                 }
             }
-            if (isEmpty) break;
-            
-            // Parse header
-            String name = extractString(header, 0, 100);
-            if (name.isEmpty()) break;
-            
-            char type = (char) header[156];
-            long size = parseOctal(header, 124, 12);
-            
-            File outFile = new File(destDir, name);
-            
-            if (type == '5' || name.endsWith("/")) {
-                // Directory
-                outFile.mkdirs();
-            } else if (type == '0' || type == 0) {
-                // Regular file
-                outFile.getParentFile().mkdirs();
-                try (FileOutputStream fos = new FileOutputStream(outFile)) {
-                    long remaining = size;
-                    byte[] buffer = new byte[8192];
-                    while (remaining > 0) {
-                        int toRead = (int) Math.min(buffer.length, remaining);
-                        int bytesRead = tarStream.read(buffer, 0, toRead);
-                        if (bytesRead < 0) break;
-                        fos.write(buffer, 0, bytesRead);
-                        remaining -= bytesRead;
-                    }
+            try {
+                int exitCode = p.waitFor();
+                if (exitCode != 0) {
+                    throw new IOException("tar exited with code " + exitCode);
                 }
-                
-                // Skip padding to 512-byte boundary
-                long padding = (512 - (size % 512)) % 512;
-                tarStream.skip(padding);
-            } else if (type == '2') {
-                // Symbolic link - skip on Windows, create on Unix
-                if (!IS_WINDOWS) {
-                    String linkTarget = extractString(header, 157, 100);
-                    try {
-                        Files.createSymbolicLink(outFile.toPath(), Paths.get(linkTarget));
-                    } catch (Exception e) {
-                        // Ignore symlink errors
-                    }
-                }
-            } else {
-                // Skip other types
-                long blocks = (size + 511) / 512;
-                tarStream.skip(blocks * 512);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for tar", e);
             }
+            return;
+        }
+
+        // Fallback to Java-based extraction; not closed so the caller can drain and hash the rest
+        GZIPInputStream gzis = new GZIPInputStream(archive, STREAM_BUFFER_SIZE);
+        try (ArchiveExtractor extractor = new ArchiveExtractor(destDir, EXTRACT_THREADS)) {
+            extractor.extractTar(gzis);
         }
     }
 
-    private static int readFully(InputStream in, byte[] buffer) throws IOException {
-        int offset = 0;
-        while (offset < buffer.length) {
-            int read = in.read(buffer, offset, buffer.length - offset);
-            if (read < 0) break;
-            offset += read;
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
         }
-        return offset;
+        return sb.toString();
     }
 
-    private static String extractString(byte[] buffer, int offset, int length) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            byte b = buffer[offset + i];
-            if (b == 0) break;
-            sb.append((char) b);
+    private static void deleteRecursively(File dir) throws IOException {
+        if (!dir.exists()) return;
+        try (java.util.stream.Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
         }
-        return sb.toString().trim();
     }
 
-    private static long parseOctal(byte[] buffer, int offset, int length) {
-        long result = 0;
-        for (int i = 0; i < length; i++) {
-            byte b = buffer[offset + i];
-            if (b == 0 || b == ' ') break;
-            if (b >= '0' && b <= '7') {
-                result = result * 8 + (b - '0');
+    // Counts bytes as they stream past and prints download progress every 10%
+    private static class ProgressInputStream extends FilterInputStream {
+        private final long totalSize;
+        private long count;
+        private int lastProgress;
+
+        ProgressInputStream(InputStream in, long totalSize) {
+            super(in);
+            this.totalSize = totalSize;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) advance(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void advance(long n) {
+            count += n;
+            if (totalSize > 0) {
+                int progress = (int) ((count * 100) / totalSize);
+                if (progress >= lastProgress + 10) {
+                    System.out.print("  " + progress + "%...");
+                    lastProgress = progress;
+                }
             }
         }
-        return result;
     }
 
-    private static String formatSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
-        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    // ==================== Setup Manifest ====================
+
+    // The manifest helpers take the file and properties explicitly so the warm-start checks can be tested
+    static void loadManifest(File file, Properties into) {
+        if (!file.exists()) return;
+        try (InputStream in = new FileInputStream(file)) {
+            into.load(in);
+        } catch (IOException e) {
+            // A corrupt manifest just means a cold start
+            into.clear();
+        }
+    }
+
+    static void saveManifest(File file, Properties from) {
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            try (OutputStream out = new FileOutputStream(file)) {
+                from.store(out, "Chess server setup manifest - delete to force a full setup");
+            }
+        } catch (IOException e) {
+            System.err.println("  Warning: could not write setup manifest: " + e.getMessage());
+        }
+    }
+
+    // True if the runtime recorded by the last setup is still there with the same size and mtime
+    static boolean nodeUnchanged(Properties manifest) {
+        String cachedBinary = manifest.getProperty("node.binary");
+        return cachedBinary != null && fingerprint(new File(cachedBinary)).equals(manifest.getProperty("node.fingerprint"));
+    }
+
+    // True if the package files hash the same and npm has not touched the installed tree since
+    static boolean dependenciesUnchanged(Properties manifest, String packageHash, File nodeModules, File installedLock) {
+        return nodeModules.isDirectory() && packageHash.equals(manifest.getProperty("deps.hash"))
+                && fingerprint(installedLock).equals(manifest.getProperty("deps.installed"));
+    }
+
+    static void recordNode(Properties manifest, File binary, String nodePath, String npmPath) {
+        manifest.setProperty("node.path", nodePath);
+        manifest.setProperty("npm.path", npmPath);
+        manifest.setProperty("node.binary", binary.getAbsolutePath());
+        manifest.setProperty("node.fingerprint", fingerprint(binary));
+    }
+
+    static void recordDependencies(Properties manifest, String packageHash, File installedLock) {
+        manifest.setProperty("deps.hash", packageHash);
+        manifest.setProperty("deps.installed", fingerprint(installedLock));
+    }
+
+    private static void recordNode(File binary) {
+        recordNode(manifest, binary, nodePath, npmPath);
+        saveManifest(MANIFEST_FILE, manifest);
+    }
+
+    private static void recordDependencies(String packageHash, File installedLock) {
+        recordDependencies(manifest, packageHash, installedLock);
+        saveManifest(MANIFEST_FILE, manifest);
+    }
+
+    // Size and modification time: cheap to check and changes whenever the file is replaced
+    private static String fingerprint(File file) {
+        if (!file.exists()) return "missing";
+        return file.length() + ":" + file.lastModified();
+    }
+
+    static String hashFiles(File... files) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+        for (File file : files) {
+            sha256.update(file.getName().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            if (file.exists()) {
+                sha256.update(Files.readAllBytes(file.toPath()));
+            }
+        }
+        return toHex(sha256.digest());
     }
 
     // ==================== Dependencies Setup ====================
@@ -406,23 +537,52 @@ public class ServerRestarter {
         
         File nodeModules = new File("web" + File.separator + "node_modules");
         File packageJson = new File("web" + File.separator + "package.json");
+        File packageLock = new File("web" + File.separator + "package-lock.json");
+        // npm 7+ rewrites this hidden lockfile whenever it changes the installed tree
+        File installedLock = new File(nodeModules, ".package-lock.json");
         
         if (!packageJson.exists()) {
             System.err.println("  ✗ web/package.json not found!");
             return false;
         }
         
-        if (nodeModules.exists() && nodeModules.isDirectory()) {
-            // Check if express exists (main dependency)
-            File express = new File(nodeModules, "express");
-            if (express.exists()) {
-                System.out.println("  ✓ Dependencies already installed");
-                return true;
-            }
+        String packageHash;
+        try {
+            packageHash = hashFiles(packageJson, packageLock);
+        } catch (IOException e) {
+            System.err.println("  ✗ Could not read package files: " + e.getMessage());
+            return false;
         }
         
-        System.out.println("  Installing dependencies (npm install)...");
-        return runNpmInstall();
+        String recordedHash = manifest.getProperty("deps.hash");
+        boolean installed = nodeModules.isDirectory();
+        if (dependenciesUnchanged(manifest, packageHash, nodeModules, installedLock)) {
+            System.out.println("  ✓ Dependencies unchanged since last install");
+            return true;
+        }
+        
+        if (recordedHash == null && installed && new File(nodeModules, "express").exists()) {
+            // Installed before the manifest existed; trust it and start tracking from here
+            System.out.println("  ✓ Dependencies already installed");
+            recordDependencies(packageHash, installedLock);
+            return true;
+        }
+        
+        if (recordedHash != null && installed) {
+            // npm install only fetches what differs from the existing tree
+            System.out.println("  package.json or package-lock.json changed, updating dependencies (npm install)...");
+        } else {
+            System.out.println("  Installing dependencies (npm install)...");
+        }
+        if (!runNpmInstall()) {
+            return false;
+        }
+        try {
+            recordDependencies(hashFiles(packageJson, packageLock), installedLock);
+        } catch (IOException e) {
+            System.err.println("  Warning: could not update setup manifest: " + e.getMessage());
+        }
+        return true;
     }
 
     private static boolean runNpmInstall() {
@@ -470,56 +630,37 @@ public class ServerRestarter {
 
     // ==================== Server Management ====================
 
+    private static final long GRACEFUL_STOP_MILLIS = 3000;
+    private static final long READY_TIMEOUT_MILLIS = 30000;
+    private static final long PORT_RELEASE_TIMEOUT_MILLIS = 5000;
+
     private static void killExistingServer() {
         System.out.println("[3/3] Checking for existing server on port " + PORT + "...");
-        try {
-            List<String> pids = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        ports.add(PORT);
+        for (int slot = 0; slot < WORKER_COUNT; slot++) {
+            ports.add(workerPort(slot, 0));
+            ports.add(workerPort(slot, 1));
+        }
 
-            if (IS_WINDOWS) {
-                ProcessBuilder pb = new ProcessBuilder("cmd.exe", "/c", 
-                    "netstat -ano | findstr :" + PORT);
-                Process netstat = pb.start();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(netstat.getInputStream()));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    if (line.contains(":" + PORT) && line.contains("LISTENING")) {
-                        String[] parts = line.split("\\s+");
-                        if (parts.length >= 5) {
-                            String pid = parts[parts.length - 1];
-                            if (!pids.contains(pid) && !pid.equals("0")) {
-                                pids.add(pid);
-                            }
-                        }
-                    }
-                }
-                netstat.waitFor();
+        try {
+            boolean stoppedAny = false;
+            for (int port : ports) {
+                // Only fall back to lsof/netstat when something (e.g. an orphan from an earlier run) holds the port
+                if (!isPortOpen(port)) continue;
 
-                for (String pid : pids) {
-                    System.out.println("  Killing process " + pid);
-                    new ProcessBuilder("taskkill", "/F", "/PID", pid).start().waitFor();
-                }
-            } else {
-                ProcessBuilder pb = new ProcessBuilder("lsof", "-t", "-i:" + PORT);
-                Process lsof = pb.start();
-                BufferedReader reader = new BufferedReader(new InputStreamReader(lsof.getInputStream()));
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (!line.trim().isEmpty()) {
-                        pids.add(line.trim());
-                    }
+                for (long pid : findPidsOnPort(port)) {
+                    System.out.println("  Stopping process " + pid + " on port " + port);
+                    ProcessHandle.of(pid).ifPresent(ServerRestarter::stopProcess);
+                    stoppedAny = true;
                 }
-                lsof.waitFor();
-
-                for (String pid : pids) {
-                    System.out.println("  Killing process " + pid);
-                    new ProcessBuilder("kill", "-9", pid).start().waitFor();
+                if (!waitForPortRelease(port, PORT_RELEASE_TIMEOUT_MILLIS)) {
+                    System.err.println("  Warning: port " + port + " is still in use");
                 }
             }
 
-            if (!pids.isEmpty()) {
+            if (stoppedAny) {
                 System.out.println("  ✓ Previous server stopped");
-                Thread.sleep(1000); // Wait for port to be released
             } else {
                 System.out.println("  ✓ No existing server found");
             }
@@ -529,8 +670,357 @@ public class ServerRestarter {
         }
     }
 
+    // Asks the process (and anything it spawned, e.g. the cmd.exe wrapper's node) to exit,
+    // escalating to a forced kill only if it does not go away within GRACEFUL_STOP_MILLIS
+    private static void stopProcess(ProcessHandle handle) {
+        List<ProcessHandle> tree = new ArrayList<>();
+        handle.descendants().forEach(tree::add);
+        tree.add(handle);
+
+        for (ProcessHandle p : tree) {
+            p.destroy();
+        }
+        long deadline = System.currentTimeMillis() + GRACEFUL_STOP_MILLIS;
+        for (ProcessHandle p : tree) {
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                p.onExit().get(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                System.out.println("  Process " + p.pid() + " did not exit in time, forcing");
+                p.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroyForcibly();
+            } catch (ExecutionException e) {
+                p.destroyForcibly();
+            }
+        }
+    }
+
+    private static List<Long> findPidsOnPort(int port) throws IOException, InterruptedException {
+        List<Long> pids = new ArrayList<>();
+        ProcessBuilder pb;
+        if (IS_WINDOWS) {
+            pb = new ProcessBuilder("cmd.exe", "/c", "netstat -ano | findstr :" + port);
+        } else {
+            pb = new ProcessBuilder("lsof", "-t", "-i:" + port);
+        }
+        Process finder = pb.start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(finder.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                String pid = null;
+                if (IS_WINDOWS) {
+                    if (line.contains(":" + port) && line.contains("LISTENING")) {
+                        String[] parts = line.split("\\s+");
+                        if (parts.length >= 5) pid = parts[parts.length - 1];
+                    }
+                } else if (!line.isEmpty()) {
+                    pid = line;
+                }
+                if (pid != null && !pid.equals("0")) {
+                    try {
+                        long value = Long.parseLong(pid);
+                        if (!pids.contains(value) && value != ProcessHandle.current().pid()) pids.add(value);
+                    } catch (NumberFormatException e) {
+                        // Not a PID line
+                    }
+                }
+            }
+        }
+        finder.waitFor();
+        return pids;
+    }
+
+    private static boolean isPortOpen(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 200);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean waitForPortRelease(int port, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long delay = 10;
+        while (isPortOpen(port)) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            Thread.sleep(delay);
+            delay = Math.min(delay * 2, 200);
+        }
+        return true;
+    }
+
+    // The server counts as ready once /api/ready on its port echoes the nonce it was started with, so a
+    // stale or unrelated listener on the port does not count; a process that exits first is an error
+    static void waitForReady(Process process, int port, String nonce, long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long delay = 10;
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IOException("Server process terminated unexpectedly (exit code " + process.exitValue() + ")");
+            }
+            if (isPortOpen(port) && answersWithNonce(port, nonce) && process.isAlive()) {
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IOException("Server did not become ready on port " + port + " within " + timeoutMillis + " ms");
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for server", e);
+            }
+            delay = Math.min(delay * 2, 250);
+        }
+    }
+
+    private static boolean answersWithNonce(int port, String nonce) {
+        try {
+            HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/api/ready").openConnection();
+            conn.setConnectTimeout(500);
+            conn.setReadTimeout(1000);
+            try (InputStream in = conn.getInputStream()) {
+                if (conn.getResponseCode() != 200) return false;
+                String body = new String(in.readNBytes(4096), java.nio.charset.StandardCharsets.UTF_8);
+                return body.contains("\"nonce\":\"" + nonce + "\"");
+            } finally {
+                conn.disconnect();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // ==================== Worker Supervision ====================
+
+    // Worker count is configurable with -Dworkers=N. web/server.js keeps tournament and game
+    // state in process memory, so more than one worker only makes sense once that state is shared.
+    private static final int WORKER_COUNT = Math.max(1, Integer.getInteger("workers", 1));
+    private static final int WORKER_BASE_PORT = Integer.getInteger("workerBasePort", 3101);
+    private static final long RESTART_BACKOFF_MIN_MILLIS = 500;
+    private static final long RESTART_BACKOFF_MAX_MILLIS = 30000;
+    private static final long STABLE_RUN_MILLIS = 60000;
+    private static final long DRAIN_TIMEOUT_MILLIS = 5000;
+
+    // Slot state below is guarded by 'workers'. A slot's generation moves on whenever a restart is scheduled
+    // or a rolling restart takes the slot over, so a backoff restart that fires late finds itself stale.
+    private static final Worker[] workers = new Worker[WORKER_COUNT];
+    private static final long[] restartBackoff = new long[WORKER_COUNT];
+    private static final long[] slotGeneration = new long[WORKER_COUNT];
+    private static final ScheduledFuture<?>[] pendingRestart = new ScheduledFuture<?>[WORKER_COUNT];
+    private static final ScheduledExecutorService supervisor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "worker-supervisor");
+        t.setDaemon(true);
+        return t;
+    });
+    private static ServerProxy proxy;
+
+    // Worker output goes through a bounded queue so a slow console or disk never stalls Node's stdout;
+    // lines are written to logs/server.log (git-ignored; rotated at 10 MB, five gzipped generations) and echoed
+    // in batches unless -DquietServer=true, in which case crashes print the recent tail instead
+    private static final boolean ECHO_SERVER_OUTPUT = !Boolean.getBoolean("quietServer");
+    private static final int CRASH_TAIL_LINES = 20;
+    private static final LogPipeline serverLog = new LogPipeline(
+            new File(System.getProperty("serverLog", "logs" + File.separator + "server.log")), 8192, 10L * 1024 * 1024, 5, true,
+            ECHO_SERVER_OUTPUT, 200);
+
+    private static class Worker {
+        final int slot;
+        final int port;
+        final Process process;
+        final long startedAt = System.currentTimeMillis();
+        volatile boolean retiring; // stopped on purpose, so its exit is not a crash
+
+        Worker(int slot, int port, Process process) {
+            this.slot = slot;
+            this.port = port;
+            this.process = process;
+        }
+    }
+
+    // Each slot alternates between two internal ports so a replacement can start before the old worker stops
+    private static int workerPort(int slot, int generation) {
+        return WORKER_BASE_PORT + slot * 2 + (generation & 1);
+    }
+
     private static void startServer() throws IOException {
-        System.out.println("  Starting Node.js server...");
+        proxy = new ServerProxy(PORT, WORKER_COUNT);
+        proxy.start();
+        System.out.println("  Proxy listening on port " + PORT + " for " + WORKER_COUNT + " worker(s)");
+        if (WORKER_COUNT > 1) {
+            System.out.println("  Note: each worker keeps its own tournament state; clients stick to one worker by address");
+        }
+
+        for (int slot = 0; slot < WORKER_COUNT; slot++) {
+            synchronized (workers) {
+                restartBackoff[slot] = RESTART_BACKOFF_MIN_MILLIS;
+            }
+            Worker worker = launchWorker(slot, workerPort(slot, 0));
+            synchronized (workers) {
+                workers[slot] = worker;
+                proxy.setBackend(slot, worker.port);
+            }
+            watch(worker);
+        }
+    }
+
+    // Replaces workers one slot at a time: the new worker must be ready before traffic moves to it,
+    // and the old one is stopped only after its open connections drain
+    private static void rollingRestart() {
+        for (int slot = 0; slot < WORKER_COUNT; slot++) {
+            Worker old;
+            synchronized (workers) {
+                old = workers[slot];
+                // A crashed slot is replaced right away; its pending backoff restart must not start a second worker
+                cancelRestart(slot);
+            }
+            int newPort = old != null && old.port == workerPort(slot, 0) ? workerPort(slot, 1) : workerPort(slot, 0);
+
+            Worker fresh;
+            try {
+                fresh = launchWorker(slot, newPort);
+            } catch (IOException e) {
+                if (old != null) {
+                    System.err.println("  ✗ Worker " + slot + " replacement failed, keeping the old one: " + e.getMessage());
+                } else {
+                    System.err.println("  ✗ Worker " + slot + " failed to start: " + e.getMessage());
+                    scheduleRestart(slot, newPort);
+                }
+                continue;
+            }
+
+            synchronized (workers) {
+                cancelRestart(slot); // in case the old worker crashed while the replacement was starting
+                workers[slot] = fresh;
+                proxy.setBackend(slot, fresh.port);
+            }
+            watch(fresh);
+            if (old != null) {
+                old.retiring = true;
+                drain(old);
+                stopProcess(old.process.toHandle());
+            }
+        }
+    }
+
+    // Caller holds 'workers'
+    private static void cancelRestart(int slot) {
+        slotGeneration[slot]++;
+        if (pendingRestart[slot] != null) {
+            pendingRestart[slot].cancel(false);
+            pendingRestart[slot] = null;
+        }
+    }
+
+    private static void drain(Worker worker) {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (proxy.getActiveConnections(worker.port) > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void stopServer() {
+        supervisor.shutdownNow();
+        synchronized (workers) {
+            for (Worker worker : workers) {
+                if (worker != null) worker.retiring = true;
+            }
+        }
+        for (Worker worker : workers) {
+            if (worker != null && worker.process.isAlive()) stopProcess(worker.process.toHandle());
+        }
+        if (proxy != null) proxy.stop();
+        serverLog.close();
+        if (serverLog.getDropped() > 0) {
+            System.err.println("[SUPERVISOR] Dropped " + serverLog.getDropped() + " server log line(s) under backpressure");
+        }
+    }
+
+    private static void onWorkerExit(Worker worker) {
+        long backoff;
+        synchronized (workers) {
+            if (worker.retiring || workers[worker.slot] != worker) return;
+            workers[worker.slot] = null;
+            // A worker that stayed up for a while gets a fresh backoff; crash loops back off exponentially
+            if (System.currentTimeMillis() - worker.startedAt > STABLE_RUN_MILLIS) {
+                restartBackoff[worker.slot] = RESTART_BACKOFF_MIN_MILLIS;
+            }
+            backoff = restartBackoff[worker.slot];
+            proxy.setBackend(worker.slot, null);
+            scheduleRestart(worker.slot, worker.port);
+        }
+
+        System.err.println("[SUPERVISOR] Worker " + worker.slot + " exited with code " + worker.process.exitValue()
+                + ", restarting in " + backoff + " ms");
+        if (!ECHO_SERVER_OUTPUT) {
+            for (String line : serverLog.tail(CRASH_TAIL_LINES)) {
+                System.err.println("  " + line);
+            }
+        }
+    }
+
+    private static void scheduleRestart(int slot, int port) {
+        synchronized (workers) {
+            long delay = restartBackoff[slot];
+            restartBackoff[slot] = Math.min(delay * 2, RESTART_BACKOFF_MAX_MILLIS);
+            long generation = ++slotGeneration[slot];
+            try {
+                pendingRestart[slot] = supervisor.schedule(() -> restart(slot, port, generation), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private static void restart(int slot, int port, long generation) {
+        synchronized (workers) {
+            if (slotGeneration[slot] != generation) return;
+            pendingRestart[slot] = null;
+        }
+        Worker worker;
+        try {
+            worker = launchWorker(slot, port);
+        } catch (IOException e) {
+            System.err.println("[SUPERVISOR] Worker " + slot + " failed to start: " + e.getMessage());
+            synchronized (workers) {
+                if (slotGeneration[slot] == generation) scheduleRestart(slot, port);
+            }
+            return;
+        }
+        synchronized (workers) {
+            if (slotGeneration[slot] == generation) {
+                workers[slot] = worker;
+                proxy.setBackend(slot, worker.port);
+            } else {
+                worker.retiring = true;
+            }
+        }
+        if (worker.retiring) {
+            // A rolling restart took the slot over while this worker was starting
+            stopProcess(worker.process.toHandle());
+        } else {
+            watch(worker);
+        }
+    }
+
+    // Only called once the worker owns its slot: an exit seen before that would look like a stale worker's
+    // and be ignored, leaving the slot routed to a dead port. A worker that already died fires right away.
+    private static void watch(Worker worker) {
+        worker.process.onExit().thenRun(() -> onWorkerExit(worker));
+    }
+
+    private static Worker launchWorker(int slot, int port) throws IOException {
+        System.out.println("  Starting Node.js worker " + slot + " on internal port " + port + "...");
+        long start = System.nanoTime();
 
         String serverPath = "web" + File.separator + "server.js";
 
@@ -543,6 +1033,11 @@ public class ServerRestarter {
         
         pb.directory(new File("."));
         pb.redirectErrorStream(true);
+        pb.environment().put("PORT", String.valueOf(port));
+        pb.environment().put("HOST", "127.0.0.1");
+        pb.environment().put("PUBLIC_PORT", String.valueOf(PORT));
+        String nonce = java.util.UUID.randomUUID().toString();
+        pb.environment().put("STARTUP_NONCE", nonce);
 
         // Add node to PATH
         if (nodePath != null && !nodePath.equals("node")) {
@@ -551,27 +1046,32 @@ public class ServerRestarter {
             pb.environment().put("PATH", nodeBin + File.pathSeparator + currentPath);
         }
 
-        serverProcess = pb.start();
+        Process process = pb.start();
+        String prefix = WORKER_COUNT == 1 ? "[SERVER] " : "[SERVER " + slot + "] ";
 
-        // Output reader thread
-        new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(serverProcess.getInputStream()))) {
+        // Output reader thread; only hands lines to the log pipeline, so it keeps the pipe drained
+        Thread outputReader = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
-                    System.out.println("[SERVER] " + line);
+                    serverLog.offer(prefix + line);
                 }
             } catch (IOException e) {
                 // Process ended
             }
-        }).start();
+        }, "worker-" + slot + "-output");
+        outputReader.setDaemon(true);
+        outputReader.start();
 
-        // Wait a moment and check if server started
         try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {}
-        
-        if (!serverProcess.isAlive()) {
-            throw new IOException("Server process terminated unexpectedly");
+            waitForReady(process, port, nonce, READY_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+            if (process.isAlive()) stopProcess(process.toHandle());
+            throw e;
         }
+
+        Worker worker = new Worker(slot, port, process);
+        System.out.println("  ✓ Worker " + slot + " ready in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return worker;
     }
 }
@@ -0,0 +1,416 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Plays two engines against each other in parallel games at a fixed time or depth per move and stops
+// as soon as a sequential probability ratio test decides between "A is elo0 stronger than B" (H0)
+// and "A is elo1 stronger" (H1). Games are refereed by ChessGame with Engine's rules: a move outside
+// Engine.generateMoves loses on the spot, and a game is drawn on a threefold repetition or after
+// --max-plies. Each pair of games starts from the same random opening with colours swapped.
+//
+// An engine is either "builtin" (Engine in this JVM) or a UCI command line, for example
+//   java SprtMatch "java -cp build/new UciEngine" "java -cp build/old UciEngine"
+//   java SprtMatch builtin "node web/lib/stockfish_uci.js"
+// Stockfish plays real chess, so its pawn captures, castling and en passant are forfeits here;
+// such games only sanity-check the harness, regressions are measured between two builds.
+public class SprtMatch {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Options, with their defaults
+    private int maxGames = 20_000;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private long moveTime = 50; // 0 = no time limit
+    private int depth = 64;     // 64 = no depth limit
+    private double elo0 = 0;
+    private double elo1 = 5;
+    private double alpha = 0.05;
+    private double beta = 0.05;
+    private int maxPlies = 300;
+    private int openingPlies = 8;
+    private long seed = 1;
+
+    private final String[] engines = new String[2];
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private volatile boolean decided;
+    private long wins;   // from A's point of view; guarded by this
+    private long draws;
+    private long losses;
+    private final LongAdder[] cpuNanos = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] moves = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] forfeits = {new LongAdder(), new LongAdder()};
+
+    private final PlayerTable players = new PlayerTable();
+    private final Player[] sides = {players.add("A"), players.add("B")};
+
+    // One engine, owned by one worker thread for all of its games
+    private interface Side extends AutoCloseable {
+        void newGame() throws IOException;
+
+        // 'history' is the game so far in UCI notation, for engines that keep their own board
+        int bestMove(Board board, boolean whiteToMove, String history) throws IOException;
+
+        // CPU time spent choosing moves so far: the search thread for builtin, the engine process
+        // between "go" and "bestmove" for UCI
+        long getCpuNanos();
+
+        @Override
+        void close();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SprtMatch match = new SprtMatch();
+        if (!match.parse(args)) {
+            System.out.println("Usage: java SprtMatch [options] <engine A> <engine B>");
+            System.out.println("  engine: builtin, or a UCI command line such as \"java UciEngine\"");
+            System.out.println("  --games N        maximum number of games (20000)");
+            System.out.println("  --concurrency N  games played in parallel (available processors)");
+            System.out.println("  --movetime MS    time per move, 0 for none (50)");
+            System.out.println("  --depth N        depth limit per move (none)");
+            System.out.println("  --elo0 E --elo1 E --alpha A --beta B   SPRT hypotheses (0, 5, 0.05, 0.05)");
+            System.out.println("  --max-plies N    adjudicate a draw after N plies (300)");
+            System.out.println("  --opening-plies N  random opening plies (8)");
+            System.out.println("  --seed N         opening seed (1)");
+            return;
+        }
+        match.run();
+    }
+
+    private boolean parse(String[] args) {
+        int engineCount = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    if (engineCount == 2) return false;
+                    engines[engineCount++] = arg;
+                    continue;
+                }
+                if (i + 1 == args.length) return false;
+                String value = args[++i];
+                switch (arg) {
+                    case "--games": maxGames = Integer.parseInt(value); break;
+                    case "--concurrency": concurrency = Math.max(1, Integer.parseInt(value)); break;
+                    case "--movetime": moveTime = Long.parseLong(value); break;
+                    case "--depth": depth = Integer.parseInt(value); break;
+                    case "--elo0": elo0 = Double.parseDouble(value); break;
+                    case "--elo1": elo1 = Double.parseDouble(value); break;
+                    case "--alpha": alpha = Double.parseDouble(value); break;
+                    case "--beta": beta = Double.parseDouble(value); break;
+                    case "--max-plies": maxPlies = Integer.parseInt(value); break;
+                    case "--opening-plies": openingPlies = Integer.parseInt(value); break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    default: return false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return engineCount == 2 && (moveTime > 0 || depth < 64);
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("SPRT elo0=%.1f elo1=%.1f alpha=%.2f beta=%.2f, bounds [%.2f, %.2f]%n",
+                elo0, elo1, alpha, beta, lowerBound(), upperBound());
+        System.out.println("A: " + engines[0]);
+        System.out.println("B: " + engines[1]);
+        if (engines[0].equals("builtin") != engines[1].equals("builtin")) {
+            // The search thread's time versus a whole process, which includes its GC and JIT threads
+            System.out.println("Warning: builtin and UCI CPU times are measured differently and are not comparable");
+        }
+        long start = System.nanoTime();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::work, "sprt-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        System.out.println();
+        printProgress();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long games;
+        synchronized (this) {
+            games = wins + draws + losses;
+        }
+        System.out.printf("%d games in %.1f s (%.1f games/s)%n", games, seconds, games / seconds);
+        for (int i = 0; i < 2; i++) {
+            long n = moves[i].sum();
+            System.out.printf("%s: %d moves, %.3f ms CPU per move, %d forfeits%n", sides[i].getName(), n,
+                    n == 0 ? 0 : cpuNanos[i].sum() / 1e6 / n, forfeits[i].sum());
+        }
+        double llr = currentLlr();
+        if (llr >= upperBound()) {
+            System.out.println("H1 accepted: A is stronger than B by at least " + elo1 + " Elo");
+        } else if (llr <= lowerBound()) {
+            System.out.println("H0 accepted: A is not stronger than B by " + elo1 + " Elo");
+        } else {
+            System.out.println("Inconclusive after " + games + " games");
+        }
+    }
+
+    private void work() {
+        Side a = null;
+        Side b = null;
+        try {
+            a = open(engines[0]);
+            b = open(engines[1]);
+            GamePool pool = new GamePool(1);
+            int index;
+            while (!decided && (index = nextGame.getAndIncrement()) < maxGames) {
+                record(play(pool, index, a, b));
+            }
+        } catch (IOException e) {
+            System.err.println(Thread.currentThread().getName() + " stopped: " + e.getMessage());
+        } finally {
+            if (a != null) {
+                cpuNanos[0].add(a.getCpuNanos());
+                a.close();
+            }
+            if (b != null) {
+                cpuNanos[1].add(b.getCpuNanos());
+                b.close();
+            }
+        }
+    }
+
+    // Returns 1 if A won, 0 for a draw and -1 if B won
+    private int play(GamePool pool, int index, Side a, Side b) throws IOException {
+        boolean aIsWhite = index % 2 == 0;
+        ChessGame game = pool.acquire(sides[aIsWhite ? 0 : 1], sides[aIsWhite ? 1 : 0]);
+        Board board = game.getBoard();
+        Random opening = new Random(seed * 1_000_003 + index / 2);
+        int[] list = new int[Engine.MAX_MOVES];
+        Map<Long, Integer> repetitions = new HashMap<>();
+        StringBuilder history = new StringBuilder();
+        a.newGame();
+        b.newGame();
+        game.start();
+
+        for (int ply = 0; !game.isFinished(); ply++) {
+            boolean white = game.isWhiteTurn();
+            if (ply >= maxPlies || repetitions.merge(board.positionHash(white), 1, Integer::sum) >= 3) {
+                game.agreeDraw();
+                break;
+            }
+            int mover = white == aIsWhite ? 0 : 1;
+            int move = Engine.NO_MOVE;
+            if (ply < openingPlies) {
+                move = randomQuietMove(board, white, list, opening);
+            }
+            if (move == Engine.NO_MOVE) {
+                move = (mover == 0 ? a : b).bestMove(board, white, history.toString());
+                moves[mover].increment();
+            }
+            if (move == Engine.NO_MOVE && Engine.generateMoves(board, white, list) == 0) {
+                game.agreeDraw(); // nothing to play and no stalemate rule
+                break;
+            }
+            int from = Engine.from(move);
+            int to = Engine.to(move);
+            if (move == Engine.NO_MOVE || !Engine.isPlayable(board, white, move)
+                    || !game.move(from & 7, from >>> 3, to & 7, to >>> 3)) {
+                forfeits[mover].increment();
+                game.resign();
+                break;
+            }
+            history.append(' ').append(Engine.formatMove(move));
+        }
+
+        Player winner = game.getWinner();
+        pool.release(game);
+        return winner == null ? 0 : winner.equals(sides[0]) ? 1 : -1;
+    }
+
+    private static int randomQuietMove(Board board, boolean white, int[] list, Random random) {
+        int count = Engine.generateMoves(board, white, list);
+        int quiet = 0;
+        for (int i = 0; i < count; i++) {
+            int to = Engine.to(list[i]);
+            if (board.getPiece(to & 7, to >>> 3) == null) list[quiet++] = list[i];
+        }
+        return quiet == 0 ? Engine.NO_MOVE : list[random.nextInt(quiet)];
+    }
+
+    private synchronized void record(int outcome) {
+        if (outcome > 0) wins++;
+        else if (outcome < 0) losses++;
+        else draws++;
+        long games = wins + draws + losses;
+        double llr = currentLlr();
+        if (!decided && (llr >= upperBound() || llr <= lowerBound())) decided = true;
+        if (games % 100 == 0 || decided) printProgress();
+    }
+
+    private synchronized double currentLlr() {
+        return llr(wins, draws, losses, elo0, elo1);
+    }
+
+    private synchronized void printProgress() {
+        long games = wins + draws + losses;
+        if (games == 0) return;
+        double score = (wins + draws / 2.0) / games;
+        double margin = 1.96 * Math.sqrt(variance(wins, draws, losses) / games);
+        System.out.printf("Games %d: +%d =%d -%d  Elo %.1f [%.1f, %.1f]  LLR %.2f%n", games, wins, draws, losses,
+                elo(score), elo(score - margin), elo(score + margin), currentLlr());
+    }
+
+    private double lowerBound() {
+        return Math.log(beta / (1 - alpha));
+    }
+
+    private double upperBound() {
+        return Math.log((1 - beta) / alpha);
+    }
+
+    // Log-likelihood ratio of H1 (elo1) against H0 (elo0) for a trinomial win/draw/loss record,
+    // using the normal approximation of the per-game score
+    static double llr(long wins, long draws, long losses, double elo0, double elo1) {
+        return llr(wins, draws, losses, elo0, elo1, false);
+    }
+
+    private static double llr(double wins, double draws, double losses, double elo0, double elo1, boolean regularized) {
+        double games = wins + draws + losses;
+        if (games == 0) return 0;
+        double variance = variance(wins, draws, losses);
+        if (variance <= 0) {
+            // Only one kind of result so far: add half a game of each outcome instead of dividing by zero
+            return regularized ? 0 : llr(wins + 0.5, draws + 0.5, losses + 0.5, elo0, elo1, true);
+        }
+        double score = (wins + draws / 2) / games;
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return (s1 - s0) * (2 * score - s0 - s1) / (2 * variance / games);
+    }
+
+    private static double variance(double wins, double draws, double losses) {
+        double games = wins + draws + losses;
+        if (games == 0) return 0;
+        double w = wins / games;
+        double d = draws / games;
+        double score = w + d / 2;
+        return w + d / 4 - score * score;
+    }
+
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    static double elo(double score) {
+        double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    private Side open(String spec) throws IOException {
+        return spec.equals("builtin") ? new BuiltinSide() : new UciSide(spec);
+    }
+
+    // Every builtin engine, on both sides and all workers, shares EvaluationCache.SHARED: there is only
+    // one builtin build in this JVM, so A and B score a position identically and neither gains from the
+    // other's entries, while a cache per worker would re-learn the same openings on every thread
+    private class BuiltinSide implements Side {
+        private final Engine engine = new Engine(EvaluationCache.SHARED);
+        private long cpu;
+
+        @Override
+        public void newGame() {
+        }
+
+        @Override
+        public int bestMove(Board board, boolean whiteToMove, String history) {
+            long before = THREADS.getCurrentThreadCpuTime();
+            int move = engine.search(board, whiteToMove, depth, moveTime, null);
+            cpu += THREADS.getCurrentThreadCpuTime() - before;
+            return move;
+        }
+
+        @Override
+        public long getCpuNanos() {
+            return cpu;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // An engine in its own process, spoken to over stdin/stdout
+    private class UciSide implements Side {
+        private final String command;
+        private final Process process;
+        private final BufferedReader output;
+        private final PrintWriter input;
+        private long cpu;
+
+        UciSide(String command) throws IOException {
+            this.command = command;
+            process = new ProcessBuilder(command.trim().split("\\s+"))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            input = new PrintWriter(process.getOutputStream(), true, StandardCharsets.UTF_8);
+            input.println("uci");
+            readUntil("uciok");
+        }
+
+        @Override
+        public void newGame() throws IOException {
+            input.println("ucinewgame");
+            input.println("isready");
+            readUntil("readyok");
+        }
+
+        @Override
+        public int bestMove(Board board, boolean whiteToMove, String history) throws IOException {
+            input.println("position startpos" + (history.isEmpty() ? "" : " moves" + history));
+            // Only the search is counted, not process startup or idle time between moves
+            long before = processCpuNanos();
+            input.println("go" + (depth < 64 ? " depth " + depth : "") + (moveTime > 0 ? " movetime " + moveTime : ""));
+            String[] reply = readUntil("bestmove").split("\\s+");
+            cpu += processCpuNanos() - before;
+            return reply.length < 2 ? Engine.NO_MOVE : Engine.parseMove(reply[1]);
+        }
+
+        private String readUntil(String prefix) throws IOException {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(prefix)) return line;
+            }
+            throw new IOException("Engine exited: " + command);
+        }
+
+        private long processCpuNanos() {
+            return process.info().totalCpuDuration().map(Duration::toNanos).orElse(0L);
+        }
+
+        @Override
+        public long getCpuNanos() {
+            return cpu;
+        }
+
+        @Override
+        public void close() {
+            input.println("quit");
+            try {
+                if (!process.waitFor(2, TimeUnit.SECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,4 +1,37 @@
+import com.sun.management.ThreadMXBean;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 public class TestTournament {
     public static void main(String[] args) throws InterruptedException {
@@ -52,11 +85,46 @@ public class TestTournament {
              System.out.println("Bob's score verified: " + p2.getScore());
         }
 
-        // 6. Wait for tournament to expire
+        // 6. Verify ratings: replaying history with a larger K should move Alice above Bob
+        tournament.recomputeRatings(new RatingSystem(RatingSystem.DEFAULT_K_PER_MINUTE * 600), 1);
+        if (p1.getElo() <= p2.getElo()) {
+            System.err.println("Error: Alice should out-rate Bob after recompute, " + p1.getElo() + " vs " + p2.getElo());
+        } else {
+            System.out.println("Ratings verified: " + p1.getElo() + " vs " + p2.getElo());
+        }
+
+        // 7. Register two more players, then run each feature's checks in the order the features were added
+        tournament.registerPlayer("Carol");
+        tournament.registerPlayer("Dave");
+        Player p3 = tournament.getPlayerByName("Carol");
+        Player p4 = tournament.getPlayerByName("Dave");
+        checkPairings(tournament);
+        checkMatchmaking(tournament, p1);
+        checkSpectatorBroadcast();
+        checkPooledGamesAllocationFree(p3, p4);
+        checkRealTimeResolution(p3, p4);
+        checkEngine();
+        checkTrafficReplay();
+        checkEvaluationCache();
+        checkMatchmakerDropsBusyPlayers(tournament, p1, p2);
+        checkHistogram();
+        checkNodeDownloadChecksum();
+        checkArchiveSymlinks();
+        checkReadinessProbe();
+        checkLogRotation();
+        checkPooledSpectator(p1, p2, p3, p4);
+        checkProxyDeadBackend();
+        checkFailingRealTimeGame(p1, p2, p3, p4);
+        checkRatingPeriods();
+        checkFlightRecorderEvents();
+        checkSetupManifest();
+        checkRealTimeResignation();
+
+        // 8. Wait for tournament to expire
         System.out.println("Waiting for tournament to expire...");
         Thread.sleep(duration + 100);
 
-        // 7. Verify isRunning() returns false
+        // 9. Verify isRunning() returns false
         if (tournament.isRunning()) {
              System.err.println("Error: Tournament should have expired.");
         } else {
@@ -65,4 +133,826 @@ public class TestTournament {
         
         System.out.println("Test Complete.");
     }
+
+    // Verify pairings: the previous opponents should not be re-paired while fresh ones exist
+    private static void checkPairings(Tournament tournament) {
+        List<Pairings.Pairing> pairings = tournament.pairSwiss();
+        boolean rematch = false;
+        for (Pairings.Pairing pairing : pairings) {
+            if (pairing.getWhite().hasPlayed(pairing.getBlack())) rematch = true;
+        }
+        if (pairings.size() != 2 || rematch) {
+            System.err.println("Error: Expected 2 pairings without rematch, got " + pairings);
+        } else {
+            System.out.println("Swiss pairings verified: " + pairings);
+        }
+
+        int rounds = Pairings.roundRobinRounds(4);
+        int games = 0;
+        for (int r = 0; r < rounds; r++) {
+            games += tournament.pairRoundRobin(r).size();
+        }
+        if (games != 6) {
+            System.err.println("Error: Round robin of 4 players should have 6 games, has " + games);
+        } else {
+            System.out.println("Round robin verified: " + rounds + " rounds, " + games + " games");
+        }
+    }
+
+    // Verify matchmaking pairs idle players with close scores
+    private static void checkMatchmaking(Tournament tournament, Player p1) {
+        List<Pairings.Pairing> matches = new ArrayList<>();
+        tournament.enableMatchmaking(500, 0, 500, matches::add);
+        tournament.disableMatchmaking();
+        if (matches.size() != 2 || !p1.isBusy()) {
+            System.err.println("Error: Expected 2 matches with all players busy, got " + matches);
+        } else {
+            System.out.println("Matchmaking verified: " + matches);
+        }
+        for (Pairings.Pairing match : matches) {
+            match.getWhite().setBusy(false);
+            match.getBlack().setBusy(false);
+        }
+    }
+
+    // Verify spectators: a reader that keeps up sees every move, one that lags is moved to a keyframe
+    private static void checkSpectatorBroadcast() {
+        Board board = new Board();
+        MoveBroadcast broadcast = new MoveBroadcast(board, 8);
+        MoveBroadcast.Reader live = broadcast.newReader();
+        MoveBroadcast.Reader lagging = broadcast.newReader();
+        long[] seen = new long[2];
+        MoveBroadcast.Listener counter = new MoveBroadcast.Listener() {
+            public void onPosition(long sequence, byte[] squares, boolean whiteToMove) { seen[0]++; }
+            public void onMove(long sequence, int from, int to, int piece, int captured, boolean gameOver, boolean endOfBatch) { seen[1]++; }
+        };
+        live.poll(counter, 16);
+        lagging.poll(counter, 16);
+        for (int i = 0; i < 20; i++) {
+            broadcast.publish(board, 52, 44, 5, MoveBroadcast.NO_PIECE, false);
+            live.poll(counter, 16);
+        }
+        lagging.poll(counter, 16);
+        if (seen[0] != 3 || seen[1] != 20 || broadcast.getConflations() != 1 || live.getLag() != 0 || lagging.getLag() != 0) {
+            System.err.println("Error: Unexpected spectator delivery, moves=" + seen[1] + " conflations=" + broadcast.getConflations());
+        } else {
+            System.out.println("Spectator broadcast verified: " + seen[0] + " positions, " + seen[1] + " moves");
+        }
+    }
+
+    // Verify pooled games reset in place and, once warm, play through without allocating
+    private static void checkPooledGamesAllocationFree(Player p3, Player p4) {
+        GamePool pool = new GamePool(2);
+        ThreadMXBean threads =
+                (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        // The JIT needs a while to scalar-replace the JFR event objects, so take the best of a few rounds
+        for (int round = 0; round < 10 && allocated > 0; round++) {
+            for (int i = 0; i < 50_000; i++) playPooledGame(pool, p3, p4);
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 10_000; i++) playPooledGame(pool, p3, p4);
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+        if (pool.getCreated() != 1 || allocated > 256) { // one stray object at most, not one per game
+            System.err.println("Error: Pooled games allocated " + allocated + " bytes over 10000 games, created " + pool.getCreated());
+        } else {
+            System.out.println("Pooled games verified: " + allocated + " bytes allocated over 10000 games");
+        }
+    }
+
+    // Verify real-time conflicts resolve by tick parity and landed pieces wait out their cooldown
+    private static void checkRealTimeResolution(Player p3, Player p4) {
+        RealTimeGame kungFu = new RealTimeGame(new ChessGame(p3, p4), 2, null);
+        Board kungFuBoard = kungFu.getGame().getBoard();
+        kungFu.getGame().start();
+        kungFu.submit(p4, 3, 0, 5, 5); // Qd8-f3, submitted first but Black moves second on even ticks
+        kungFu.submit(p3, 6, 7, 5, 5); // Ng1-f3
+        kungFu.advance(0);
+        boolean whiteWonSquare = kungFuBoard.getPiece(5, 5) instanceof Knight && kungFuBoard.getPiece(3, 0) instanceof Queen;
+        kungFu.submit(p3, 5, 5, 6, 3); // Nf3-g5 while still cooling down
+        kungFu.advance(1);
+        boolean cooledDown = kungFuBoard.getPiece(5, 5) instanceof Knight;
+        kungFu.submit(p3, 5, 5, 6, 3); // Nf3-g5 now allowed
+        kungFu.advance(2);
+        kungFu.submit(p3, 6, 3, 4, 4); // Ng5-e4, but Black moves first on odd ticks
+        kungFu.submit(p4, 3, 0, 6, 3); // Qd8xg5
+        kungFu.advance(3);
+        boolean blackWonSquare = kungFuBoard.getPiece(6, 3) instanceof Queen && kungFuBoard.getPiece(4, 4) == null;
+        if (!whiteWonSquare || !cooledDown || !blackWonSquare) {
+            System.err.println("Error: Real-time resolution wrong: " + whiteWonSquare + " " + cooledDown + " " + blackWonSquare);
+        } else {
+            System.out.println("Real-time resolution verified");
+        }
+    }
+
+    // Verify the engine generates the 20 opening moves, takes a king in reach, and that SPRT leans the right way
+    private static void checkEngine() {
+        Board engineBoard = new Board();
+        Engine engine = new Engine(new EvaluationCache(1 << 10));
+        int[] generated = new int[Engine.MAX_MOVES];
+        int openingMoves = Engine.generateMoves(engineBoard, true, generated);
+        engineBoard.setPiece(5, 1, null);            // f7 gone
+        engineBoard.setPiece(7, 3, Queen.WHITE);     // queen on h5, eyeing e8 through g6 and f7
+        int kingCapture = engine.search(engineBoard, true, 3, 0, null);
+        boolean sprtLeans = SprtMatch.llr(60, 20, 20, 0, 5) > 0 && SprtMatch.llr(20, 20, 60, 0, 5) < 0;
+        if (openingMoves != 20 || !"h5e8".equals(Engine.formatMove(kingCapture)) || !sprtLeans) {
+            System.err.println("Error: Engine check failed: " + openingMoves + " " + Engine.formatMove(kingCapture) + " " + sprtLeans);
+        } else {
+            System.out.println("Engine verified: " + openingMoves + " opening moves, " + Engine.formatMove(kingCapture));
+        }
+    }
+
+    // Verify a recorded game replays to the same final position, result and scores
+    private static void checkTrafficReplay() throws InterruptedException {
+        try {
+            File trace = File.createTempFile("traffic", ".bin");
+            trace.deleteOnExit();
+            Tournament recorded = new Tournament();
+            recorded.registerPlayer("Gina"); // registered before the recording, so the recorded ids start at 1
+            TrafficRecorder recorder = TrafficRecorder.start(trace);
+            Player erin = recorded.registerPlayer("Erin");
+            Player frank = recorded.registerPlayer("Frank");
+            ChessGame game = new ChessGame(erin, frank);
+            game.start();
+            game.move(4, 6, 4, 4);
+            boolean refused = !game.move(4, 6, 4, 4); // e2 is empty now
+            game.move(4, 1, 4, 3);
+            game.move(3, 7, 4, 0);
+            recorded.recordGameResult(new GameResult(game.getWinner(), 1000), erin, frank);
+            // Real-time: the turn never advances, so only the recorded colour says Black resigned
+            ChessGame realTime = new ChessGame(erin, frank);
+            realTime.start();
+            realTime.moveAs(true, 4, 1, 4, 3); // refused: a Black pawn
+            realTime.moveAs(false, 4, 1, 4, 3);
+            realTime.resign(false);
+            recorder.close();
+
+            TrafficReplay replay = new TrafficReplay();
+            replay.load(trace.getPath());
+            replay.run(0, 2, 1);
+            Tournament replayed = replay.getTournament();
+            Player replayedErin = replayed.getPlayerByName("Erin");
+            Player replayedFrank = replayed.getPlayerByName("Frank");
+            long[] outcomes = replay.getOutcomes();
+            boolean replayOk = refused && realTime.getWinner() == erin
+                    && replay.getFinalPositions() == game.getBoard().positionHash(true) + realTime.getBoard().positionHash(true)
+                    && outcomes[0] == 0 && outcomes[1] == 2 && outcomes[2] == 0
+                    && replay.getRejectedMoves() == 2 && replay.getSkipped() == 0
+                    && replayedErin != null && replayedFrank != null && replayed.getPlayerByName("Gina") == null
+                    && replayedErin.getScore() == erin.getScore() && replayedFrank.getScore() == frank.getScore()
+                    && replayed.getHistory().size() == 1 && replayedErin.equals(replayed.getHistory().get(0).getResult().getWinner());
+            if (!replayOk) {
+                System.err.println("Error: Replay diverged: outcomes " + Arrays.toString(outcomes) + ", rejected "
+                        + replay.getRejectedMoves() + ", skipped " + replay.getSkipped() + ", scores "
+                        + (replayedErin == null ? "-" : replayedErin.getScore()) + "/" + erin.getScore());
+            } else {
+                System.out.println("Traffic replay verified: " + replay.getRecordCount() + " records, White wins on the recorded final positions");
+            }
+
+            // A corrupt player id must not size the replay's player arrays
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(TrafficRecorder.MAGIC);
+            out.writeShort(TrafficRecorder.VERSION);
+            out.writeByte(TrafficRecorder.REGISTER);
+            TrafficRecorder.writeVarLong(out, 0);
+            TrafficRecorder.writeVarLong(out, Integer.MAX_VALUE);
+            out.writeUTF("Mallory");
+            File corrupt = File.createTempFile("traffic", ".bin");
+            corrupt.deleteOnExit();
+            Files.write(corrupt.toPath(), bytes.toByteArray());
+            try {
+                new TrafficReplay().load(corrupt.getPath());
+                System.err.println("Error: Trace with player id " + Integer.MAX_VALUE + " was loaded");
+            } catch (IOException e) {
+                System.out.println("Corrupt trace rejected: " + e.getMessage());
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Traffic trace failed: " + e.getMessage());
+        }
+    }
+
+    // Verify the evaluation cache keeps deeper results and gives referenced entries a second chance
+    private static void checkEvaluationCache() throws InterruptedException {
+        EvaluationCache oneSet = new EvaluationCache(4); // a single set of 4 ways
+        for (long h = 1; h <= 4; h++) oneSet.put(h, 3, (int) h * 10);
+        oneSet.get(1, 3);     // marks entry 1 as referenced
+        oneSet.put(1, 1, -1); // a shallower result must not overwrite the deeper one
+        oneSet.put(5, 3, 50); // the CLOCK hand skips entry 1 and evicts entry 2
+        boolean clockOk = oneSet.get(1, 3) == 10 && oneSet.get(2, 0) == EvaluationCache.MISS
+                && oneSet.get(5, 3) == 50 && oneSet.get(1, 4) == EvaluationCache.MISS && oneSet.getEvictions() == 1;
+        EvaluationCache sharedCache = new EvaluationCache(1 << 12);
+        AtomicInteger wrongScores = new AtomicInteger();
+        List<Thread> cacheThreads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            Thread cacheThread = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long hash = random.nextInt(1 << 14) * 0x9E3779B97F4A7C15L;
+                    int score = sharedCache.get(hash, 2);
+                    if (score != EvaluationCache.MISS && score != (int) (hash >>> 40)) wrongScores.incrementAndGet();
+                    sharedCache.put(hash, 2 + random.nextInt(2), (int) (hash >>> 40));
+                }
+            });
+            cacheThreads.add(cacheThread);
+            cacheThread.start();
+        }
+        for (Thread cacheThread : cacheThreads) cacheThread.join();
+        if (!clockOk || wrongScores.get() != 0 || sharedCache.getHits() == 0) {
+            System.err.println("Error: Evaluation cache wrong: clock " + clockOk + ", " + wrongScores.get() + " wrong scores, " + sharedCache);
+        } else {
+            System.out.println("Evaluation cache verified: " + sharedCache);
+        }
+    }
+
+    // Verify a queued player who starts a game elsewhere is dropped instead of matched twice,
+    // and that re-enabling matchmaking does not leave the old sweeper running
+    private static void checkMatchmakerDropsBusyPlayers(Tournament tournament, Player p1, Player p2) throws InterruptedException {
+        List<Pairings.Pairing> queued = new ArrayList<>();
+        Matchmaker queue = new Matchmaker(500, 0, 500, queued::add);
+        queue.enqueue(p1);
+        p1.setBusy(true); // e.g. a game started from Main
+        queue.enqueue(p2);
+        queue.sweep();
+        boolean droppedBusy = queued.isEmpty() && queue.getWaitingCount() == 1 && !p2.isBusy();
+        queue.remove(p2);
+        p1.setBusy(false);
+        tournament.enableMatchmaking(500, 0, 500, m -> { });
+        tournament.enableMatchmaking(500, 0, 500, m -> { });
+        tournament.disableMatchmaking();
+        Thread.sleep(200);
+        long sweepers = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("matchmaker-sweep")).count();
+        for (Player p : tournament.getPlayers()) p.setBusy(false);
+        if (!droppedBusy || sweepers != 0) {
+            System.err.println("Error: Matchmaker kept a busy player (" + queued + ") or leaked " + sweepers + " sweepers");
+        } else {
+            System.out.println("Busy players dropped from the matchmaking queue verified");
+        }
+    }
+
+    // Verify histogram quantiles stay within the bucket error when many threads record, and the Prometheus text
+    private static void checkHistogram() throws InterruptedException {
+        LatencyHistogram latency = Metrics.histogram("test_latency");
+        List<Thread> recorders = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int first = t;
+            Thread recorderThread = new Thread(() -> {
+                for (int i = first; i < 100_000; i += 4) latency.record((i + 1) * 1_000L); // 1 us .. 100 ms, uniform
+            });
+            recorders.add(recorderThread);
+            recorderThread.start();
+        }
+        for (Thread recorderThread : recorders) recorderThread.join();
+        boolean quantilesOk = latency.getCount() == 100_000 && latency.getSum() == 1_000L * 100_000 * 100_001 / 2;
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double exact = q * 100_000 * 1_000;
+            double error = Math.abs(latency.getValueAtQuantile(q) - exact) / exact;
+            if (error > 1.0 / 8) quantilesOk = false; // SUB_BUCKETS = 8
+        }
+        String prometheus = Metrics.prometheusText();
+        boolean prometheusOk = prometheus.contains("# TYPE chess_test_latency_seconds summary\n")
+                && prometheus.contains("chess_test_latency_seconds_count 100000\n")
+                && prometheus.contains("chess_test_latency_seconds{quantile=\"0.5\"} 0.05")
+                && prometheus.contains("# TYPE chess_moves_applied_total counter\n");
+        if (!quantilesOk || !prometheusOk) {
+            System.err.println("Error: Histogram wrong (" + quantilesOk + ", " + prometheusOk + "): " + latency);
+        } else {
+            System.out.println("Histogram quantiles and Prometheus text verified: " + latency);
+        }
+    }
+
+    // Verify the Node download is checked against SHASUMS256.txt, using a local HTTP stand-in for nodejs.org
+    private static void checkNodeDownloadChecksum() {
+        File downloadDir = null;
+        HttpServer nodeDist = null;
+        try {
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            tarEntry(tar, "node-test/bin/node", '0', "", "#!/bin/sh\n".getBytes());
+            tar.write(new byte[1024]);
+            ByteArrayOutputStream archive = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(archive)) {
+                gzip.write(tar.toByteArray());
+            }
+            byte[] archiveBytes = archive.toByteArray();
+            StringBuilder sha = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(archiveBytes)) sha.append(String.format("%02x", b));
+            byte[] shasums = (sha + "  node-test.tar.gz\n").getBytes();
+
+            nodeDist = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            nodeDist.createContext("/", exchange -> {
+                String path = exchange.getRequestURI().getPath();
+                byte[] body = path.equals("/node-test.tar.gz") ? archiveBytes : path.equals("/SHASUMS256.txt") ? shasums : null;
+                exchange.sendResponseHeaders(body == null ? 404 : 200, body == null ? -1 : body.length);
+                if (body != null) exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            nodeDist.start();
+            String dist = "http://127.0.0.1:" + nodeDist.getAddress().getPort();
+            downloadDir = Files.createTempDirectory("node-dist").toFile();
+
+            String expected = ServerRestarter.expectedChecksum(dist + "/SHASUMS256.txt", "node-test.tar.gz", false);
+            ServerRestarter.downloadAndExtract(dist + "/node-test.tar.gz", expected, downloadDir, false);
+            boolean installed = new File(downloadDir, "node-test/bin/node").isFile();
+            boolean mismatchRejected = false;
+            try {
+                ServerRestarter.downloadAndExtract(dist + "/node-test.tar.gz", "0".repeat(64), downloadDir, false);
+            } catch (IOException e) {
+                mismatchRejected = e.getMessage().startsWith("SHA-256 mismatch");
+            }
+            boolean missingRejected = false;
+            try {
+                ServerRestarter.expectedChecksum(dist + "/missing/SHASUMS256.txt", "node-test.tar.gz", false);
+            } catch (IOException e) {
+                missingRejected = true;
+            }
+            boolean optOut = ServerRestarter.expectedChecksum(dist + "/missing/SHASUMS256.txt", "node-test.tar.gz", true) == null;
+            if (!installed || !mismatchRejected || !missingRejected || !optOut) {
+                System.err.println("Error: Node download check wrong: installed " + installed + ", mismatch rejected " + mismatchRejected
+                        + ", missing checksum rejected " + missingRejected + ", opt-out " + optOut);
+            } else {
+                System.out.println("Node download checksum verified against a local stand-in");
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.err.println("Error: Node download stand-in failed: " + e);
+        } finally {
+            if (nodeDist != null) nodeDist.stop(0);
+            deleteTree(downloadDir);
+        }
+    }
+
+    // Verify archive symlinks cannot be used to write outside the destination directory
+    private static void checkArchiveSymlinks() {
+        File extractRoot = null;
+        try {
+            extractRoot = Files.createTempDirectory("extract").toFile();
+            File outside = new File(extractRoot, "outside");
+            outside.mkdirs();
+            String[][] attacks = {
+                    {"a", outside.getAbsolutePath()}, // absolute target
+                    {"b", "../outside"},              // relative target leaving the destination
+                    {"c/d", ".", "c/d/e", "../../outside"}, // a link that only escapes through an earlier link
+                    {"k/s", ".", "m", "k/s/../.."},         // looks inside as text, but k/s/.. is the destination itself
+            };
+            int rejected = 0;
+            for (int i = 0; i < attacks.length; i++) {
+                ByteArrayOutputStream tar = new ByteArrayOutputStream();
+                String[] links = attacks[i];
+                for (int l = 0; l < links.length; l += 2) tarEntry(tar, links[l], '2', links[l + 1], new byte[0]);
+                tarEntry(tar, links[links.length - 2] + "/sub/pwned.txt", '0', "", "pwned".getBytes());
+                tar.write(new byte[1024]);
+                File dest = new File(extractRoot, "dest" + i);
+                try (ArchiveExtractor extractor = new ArchiveExtractor(dest, 2)) {
+                    extractor.extractTar(new ByteArrayInputStream(tar.toByteArray()));
+                } catch (IOException e) {
+                    rejected++;
+                }
+            }
+            // A directory swapped for a link while its files are still queued does not redirect them
+            ByteArrayOutputStream swap = new ByteArrayOutputStream();
+            tarEntry(swap, "k/s", '2', ".", new byte[0]);
+            tarEntry(swap, "a/", '5', "", new byte[0]);
+            tarEntry(swap, "a/pwned.txt", '0', "", "pwned".getBytes());
+            tarEntry(swap, "a", '2', "k/s/../../outside", new byte[0]);
+            swap.write(new byte[1024]);
+            try (ArchiveExtractor extractor = new ArchiveExtractor(new File(extractRoot, "dest-swap"), 2)) {
+                extractor.extractTar(new ByteArrayInputStream(swap.toByteArray()));
+            } catch (IOException e) {
+                rejected++;
+            }
+            // A symlink already on disk is not followed either
+            File dest = new File(extractRoot, "dest-existing");
+            dest.mkdirs();
+            Files.createSymbolicLink(new File(dest, "a").toPath(), outside.toPath());
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            tarEntry(tar, "a/sub/pwned.txt", '0', "", "pwned".getBytes());
+            tarEntry(tar, "inside/ok.txt", '0', "", "ok".getBytes());
+            tar.write(new byte[1024]);
+            try (ArchiveExtractor extractor = new ArchiveExtractor(dest, 2)) {
+                extractor.extractTar(new ByteArrayInputStream(tar.toByteArray()));
+            } catch (IOException e) {
+                rejected++;
+            }
+            // Links that stay inside still work
+            File safe = new File(extractRoot, "dest-safe");
+            tar = new ByteArrayOutputStream();
+            tarEntry(tar, "lib/real/file.txt", '0', "", "ok".getBytes());
+            tarEntry(tar, "bin/link", '2', "../lib/real", new byte[0]);
+            tar.write(new byte[1024]);
+            try (ArchiveExtractor extractor = new ArchiveExtractor(safe, 2)) {
+                extractor.extractTar(new ByteArrayInputStream(tar.toByteArray()));
+            }
+            // Duplicate entries keep the last copy, and a failed background write surfaces as the I/O error itself
+            File dupes = new File(extractRoot, "dest-dupes");
+            tar = new ByteArrayOutputStream();
+            for (int i = 0; i < 50; i++) tarEntry(tar, "dup.txt", '0', "", ("copy " + i).getBytes());
+            tarEntry(tar, "dir/", '5', "", new byte[0]);
+            tarEntry(tar, "dir", '0', "", "not a directory".getBytes());
+            tar.write(new byte[1024]);
+            Throwable writeFailure = null;
+            try (ArchiveExtractor extractor = new ArchiveExtractor(dupes, 4)) {
+                extractor.extractTar(new ByteArrayInputStream(tar.toByteArray()));
+            } catch (IOException | RuntimeException e) {
+                writeFailure = e;
+            }
+            String lastCopy = new String(Files.readAllBytes(new File(dupes, "dup.txt").toPath()));
+            String[] escaped = outside.list();
+            boolean linkOk = new File(safe, "bin/link/file.txt").isFile();
+            if (rejected != 6 || escaped == null || escaped.length != 0 || !linkOk
+                    || !lastCopy.equals("copy 49") || !(writeFailure instanceof IOException)) {
+                System.err.println("Error: Archive symlinks escaped: " + rejected + " of 6 rejected, outside has "
+                        + Arrays.toString(escaped) + ", inside link works " + linkOk
+                        + ", duplicate kept '" + lastCopy + "', write failure " + writeFailure);
+            } else {
+                System.out.println("Archive symlink escapes rejected verified");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Archive symlink check failed: " + e);
+        } finally {
+            deleteTree(extractRoot);
+        }
+    }
+
+    // Verify readiness needs the worker's own startup nonce and a live process, not just a listener
+    private static void checkReadinessProbe() throws InterruptedException {
+        HttpServer impostor = null;
+        Process idle = null;
+        try {
+            impostor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            impostor.createContext("/api/ready", exchange -> {
+                byte[] body = "{\"nonce\":\"stale\",\"pid\":1}".getBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            impostor.start();
+            int port = impostor.getAddress().getPort();
+            idle = new ProcessBuilder("sleep", "30").start();
+            boolean impostorRejected = false;
+            try {
+                ServerRestarter.waitForReady(idle, port, "fresh", 300);
+            } catch (IOException e) {
+                impostorRejected = e.getMessage().contains("did not become ready");
+            }
+            ServerRestarter.waitForReady(idle, port, "stale", 1000);
+            idle.destroy();
+            idle.waitFor();
+            boolean deadRejected = false;
+            try {
+                ServerRestarter.waitForReady(idle, port, "stale", 1000);
+            } catch (IOException e) {
+                deadRejected = e.getMessage().contains("terminated");
+            }
+            if (!impostorRejected || !deadRejected) {
+                System.err.println("Error: Readiness probe accepted an impostor (" + impostorRejected + ") or a dead process (" + deadRejected + ")");
+            } else {
+                System.out.println("Readiness probe startup nonce verified");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Readiness probe check failed: " + e);
+        } finally {
+            if (impostor != null) impostor.stop(0);
+            if (idle != null) idle.destroyForcibly();
+        }
+    }
+
+    // Verify log rotation counts encoded bytes, not characters
+    private static void checkLogRotation() {
+        File logDir = null;
+        try {
+            logDir = Files.createTempDirectory("logs").toFile();
+            File logFile = new File(logDir, "server.log");
+            LogPipeline log = new LogPipeline(logFile, 64, 1000, 2, false, false, 10);
+            String knights = "♞".repeat(100); // 100 chars, 300 bytes in UTF-8
+            for (int i = 0; i < 5; i++) log.offer(knights);
+            log.close();
+            File rotated = new File(logDir, "server.log.1");
+            if (!rotated.exists() || rotated.length() < 1000) {
+                System.err.println("Error: Log holding " + (logFile.length() + rotated.length()) + " bytes was not rotated at 1000 bytes");
+            } else {
+                System.out.println("Log rotation by encoded bytes verified");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Log rotation check failed: " + e);
+        } finally {
+            deleteTree(logDir);
+        }
+    }
+
+    // Verify a spectator of a pooled game stops at the end of its pairing, and off-board moves are rejected
+    private static void checkPooledSpectator(Player p1, Player p2, Player p3, Player p4) {
+        GamePool spectatorPool = new GamePool(1);
+        ChessGame first = spectatorPool.acquire(p1, p2);
+        first.start();
+        MoveBroadcast.Reader oldSpectator = first.getBroadcast().newReader();
+        int[] oldEvents = new int[2];
+        MoveBroadcast.Listener oldListener = new MoveBroadcast.Listener() {
+            public void onPosition(long sequence, byte[] squares, boolean whiteToMove) { oldEvents[0]++; }
+            public void onMove(long sequence, int from, int to, int piece, int captured, boolean gameOver, boolean endOfBatch) { oldEvents[1]++; }
+        };
+        oldSpectator.poll(oldListener, 16);
+        first.move(4, 6, 4, 4);
+        first.resign();
+        spectatorPool.release(first);
+        ChessGame second = spectatorPool.acquire(p3, p4);
+        second.start();
+        second.move(3, 6, 3, 4);
+        int afterReset = oldSpectator.poll(oldListener, 16) + oldSpectator.poll(oldListener, 16);
+        String oldSeen = Arrays.toString(oldEvents);
+        MoveBroadcast.Reader newSpectator = second.getBroadcast().newReader();
+        int newEvents = newSpectator.poll(oldListener, 16); // the new pairing's position and d4
+        boolean rejected = !second.move(1, 7, 3, 8) && !second.move(-1, 0, 0, 0) && !second.moveAs(false, 1, 0, 8, 2);
+        spectatorPool.release(second);
+        // position, e4, the resignation marker; nothing from the second pairing
+        if (second != first || !oldSeen.equals("[1, 2]") || afterReset != 2 || !oldSpectator.isFinished()
+                || newEvents != 2 || newSpectator.isFinished() || !rejected) {
+            System.err.println("Error: Spectator crossed pairings (" + oldSeen + ", " + afterReset
+                    + ", " + newEvents + ") or an off-board move was accepted: " + !rejected);
+        } else {
+            System.out.println("Pooled spectator stops at its pairing and off-board moves rejected verified");
+        }
+    }
+
+    // Verify a client routed to a dead backend is closed at once and not counted against the drain
+    private static void checkProxyDeadBackend() throws InterruptedException {
+        ServerProxy deadProxy = null;
+        try {
+            int proxyPort;
+            int deadPort;
+            try (ServerSocket probe = new ServerSocket(0); ServerSocket dead = new ServerSocket(0)) {
+                proxyPort = probe.getLocalPort();
+                deadPort = dead.getLocalPort();
+            }
+            deadProxy = new ServerProxy(proxyPort, 1);
+            deadProxy.setBackend(0, deadPort);
+            deadProxy.start();
+            int closedAt = -2;
+            try (Socket client = new Socket("127.0.0.1", proxyPort)) {
+                client.setSoTimeout(3000);
+                closedAt = client.getInputStream().read();
+            } catch (SocketTimeoutException e) {
+                // closedAt stays -2: the client hung
+            } catch (IOException e) {
+                closedAt = -1; // reset by the proxy also counts as closed
+            }
+            long drainDeadline = System.currentTimeMillis() + 1000;
+            while (deadProxy.getActiveConnections(deadPort) > 0 && System.currentTimeMillis() < drainDeadline) Thread.sleep(10);
+            if (closedAt != -1 || deadProxy.getActiveConnections(deadPort) != 0) {
+                System.err.println("Error: Dead backend left the client " + (closedAt == -2 ? "hanging" : "open")
+                        + " with " + deadProxy.getActiveConnections(deadPort) + " active connection(s)");
+            } else {
+                System.out.println("Dead proxy backend closes the client verified");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Dead backend check failed: " + e);
+        } finally {
+            if (deadProxy != null) deadProxy.stop();
+        }
+    }
+
+    // Verify a real-time game that throws every tick is dropped without stalling the games after it
+    private static void checkFailingRealTimeGame(Player p1, Player p2, Player p3, Player p4) throws InterruptedException {
+        TickScheduler ticks = new TickScheduler(200);
+        List<RealTimeGame> dropped = new CopyOnWriteArrayList<>();
+        RealTimeGame broken = new RealTimeGame(new ChessGame(p1, p2), 0, dropped::add) {
+            @Override
+            void advance(long tick) {
+                throw new IllegalStateException("broken game");
+            }
+        };
+        RealTimeGame healthy = new RealTimeGame(new ChessGame(p3, p4), 0, null);
+        healthy.getGame().start();
+        healthy.submit(p3, 4, 6, 4, 4); // e2-e4
+        ticks.register(broken); // ahead of the healthy game in the batch
+        ticks.register(healthy);
+        ticks.start();
+        long tickDeadline = System.currentTimeMillis() + 2000;
+        while ((ticks.getTick() < 5 || healthy.getGame().getBoard().getPiece(4, 4) == null) && System.currentTimeMillis() < tickDeadline) {
+            Thread.sleep(10);
+        }
+        ticks.stop();
+        boolean healthyMoved = healthy.getGame().getBoard().getPiece(4, 4) instanceof Pawn;
+        if (!healthyMoved || !dropped.equals(List.of(broken)) || ticks.getActiveCount() != 1) {
+            System.err.println("Error: Failing game stalled the tick (" + healthyMoved + ") or was not dropped ("
+                    + dropped.size() + " callbacks, " + ticks.getActiveCount() + " active)");
+        } else {
+            System.out.println("Failing real-time game dropped without stalling the tick verified");
+        }
+    }
+
+    // Verify rating periods: every change in a period comes from the ratings at the start of that period.
+    // K = 32 for one-minute games. Period 1: A beats B and C, all at 400, so each game is worth 16.
+    // Period 2 starts from A 432, B 384, C 384: C beats B (+16/-16), and C draws A, where A expected
+    // 1 / (1 + 10^(-48/400)) = 0.5686, so A loses 2 and C gains 2. Per-game updates would give A 431 after period 1.
+    private static void checkRatingPeriods() {
+        PlayerTable ratingTable = new PlayerTable();
+        Player ratedA = ratingTable.add("A");
+        Player ratedB = ratingTable.add("B");
+        Player ratedC = ratingTable.add("C");
+        List<GameRecord> ratedGames = List.of(
+                new GameRecord(ratedA, ratedB, new GameResult(ratedA, 60_000)),
+                new GameRecord(ratedC, ratedA, new GameResult(ratedA, 60_000)),
+                new GameRecord(ratedB, ratedC, new GameResult(ratedC, 60_000)),
+                new GameRecord(ratedC, ratedA, new GameResult(null, 60_000)));
+        new RatingSystem().recompute(ratingTable.asList(), ratedGames, 2);
+        if (ratedA.getElo() != 430 || ratedB.getElo() != 368 || ratedC.getElo() != 402) {
+            System.err.println("Error: Rating periods wrong, expected 430/368/402, got "
+                    + ratedA.getElo() + "/" + ratedB.getElo() + "/" + ratedC.getElo());
+        } else {
+            System.out.println("Rating periods verified: 430/368/402");
+        }
+    }
+
+    // Verify the Flight Recorder events of a game, its result and an expiry seen by many threads at once,
+    // and that JfrSummary reads them back
+    private static void checkFlightRecorderEvents() throws InterruptedException {
+        File jfrFile = null;
+        try (Recording recording = new Recording()) {
+            for (String event : new String[]{"chess.GameStart", "chess.GameEnd", "chess.Move", "chess.ResultRecorded", "chess.TournamentExpired"}) {
+                recording.enable(event);
+            }
+            recording.start();
+            Tournament recordedTournament = new Tournament();
+            Player hana = recordedTournament.registerPlayer("Hana");
+            Player ivan = recordedTournament.registerPlayer("Ivan");
+            ChessGame jfrGame = new ChessGame(hana, ivan);
+            jfrGame.start();
+            jfrGame.move(4, 6, 4, 4);
+            jfrGame.move(4, 6, 4, 4); // Black cannot move e2, which is empty anyway
+            jfrGame.move(4, 1, 4, 3);
+            jfrGame.move(3, 7, 4, 0);
+            recordedTournament.recordGameResult(new GameResult(jfrGame.getWinner(), 1000), hana, ivan);
+            recordedTournament.startTournament(0);
+            List<Thread> expirers = new ArrayList<>();
+            CountDownLatch go = new CountDownLatch(1);
+            for (int t = 0; t < 8; t++) {
+                Thread expirer = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    recordedTournament.isRunning();
+                });
+                expirers.add(expirer);
+                expirer.start();
+            }
+            go.countDown();
+            for (Thread expirer : expirers) expirer.join();
+            recording.stop();
+            jfrFile = File.createTempFile("chess", ".jfr");
+            recording.dump(jfrFile.toPath());
+
+            Map<String, Integer> counts = new TreeMap<>();
+            int appliedMoves = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(jfrFile.toPath())) {
+                counts.merge(event.getEventType().getName(), 1, Integer::sum);
+                if (event.getEventType().getName().equals("chess.Move") && event.getBoolean("applied")) appliedMoves++;
+            }
+            ByteArrayOutputStream summary = new ByteArrayOutputStream();
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(summary, true));
+            try {
+                JfrSummary.main(new String[]{jfrFile.getPath()});
+            } finally {
+                System.setOut(console);
+            }
+            boolean eventsOk = counts.equals(Map.of("chess.GameStart", 1, "chess.GameEnd", 1, "chess.Move", 4,
+                    "chess.ResultRecorded", 1, "chess.TournamentExpired", 1)) && appliedMoves == 3;
+            boolean summaryOk = summary.toString().contains("chess.Move") && summary.toString().contains("Moves applied: 3, rejected: 1");
+            if (!eventsOk || !summaryOk) {
+                System.err.println("Error: Flight Recorder events wrong: " + counts + ", " + appliedMoves + " applied, summary:\n" + summary);
+            } else {
+                System.out.println("Flight Recorder events and JfrSummary verified: " + counts);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Flight Recorder check failed: " + e);
+        } finally {
+            if (jfrFile != null) jfrFile.delete();
+        }
+    }
+
+    // Verify the setup manifest skips the probes on a warm restart and not once a tracked file changes
+    private static void checkSetupManifest() {
+        File setupDir = null;
+        try {
+            setupDir = Files.createTempDirectory("setup").toFile();
+            File stubNode = new File(setupDir, "node");
+            File packageJson = new File(setupDir, "package.json");
+            File packageLock = new File(setupDir, "package-lock.json");
+            File nodeModules = new File(setupDir, "node_modules");
+            File installedLock = new File(nodeModules, ".package-lock.json");
+            nodeModules.mkdirs();
+            Files.writeString(stubNode.toPath(), "#!/bin/sh\n");
+            Files.writeString(packageJson.toPath(), "{\"dependencies\":{\"express\":\"^4\"}}");
+            Files.writeString(packageLock.toPath(), "{}");
+            Files.writeString(installedLock.toPath(), "{}");
+
+            File manifestFile = new File(setupDir, "setup-manifest.properties");
+            Properties written = new Properties();
+            ServerRestarter.recordNode(written, stubNode, stubNode.getPath(), "npm");
+            ServerRestarter.recordDependencies(written, ServerRestarter.hashFiles(packageJson, packageLock), installedLock);
+            ServerRestarter.saveManifest(manifestFile, written);
+
+            Properties warm = new Properties();
+            ServerRestarter.loadManifest(manifestFile, warm);
+            boolean warmSkips = ServerRestarter.nodeUnchanged(warm) && ServerRestarter.dependenciesUnchanged(
+                    warm, ServerRestarter.hashFiles(packageJson, packageLock), nodeModules, installedLock);
+
+            // Same size, new mtime: a replaced binary must be probed again
+            stubNode.setLastModified(stubNode.lastModified() - 60_000);
+            boolean nodeReprobed = !ServerRestarter.nodeUnchanged(warm);
+            // npm rewrote the installed tree (size changes), package files untouched
+            Files.writeString(installedLock.toPath(), "{\"packages\":{}}");
+            boolean treeReinstalled = !ServerRestarter.dependenciesUnchanged(
+                    warm, ServerRestarter.hashFiles(packageJson, packageLock), nodeModules, installedLock);
+            // Edited package.json against a freshly recorded tree
+            ServerRestarter.recordDependencies(warm, ServerRestarter.hashFiles(packageJson, packageLock), installedLock);
+            Files.writeString(packageJson.toPath(), "{\"dependencies\":{\"express\":\"^5\"}}");
+            boolean packageReinstalled = !ServerRestarter.dependenciesUnchanged(
+                    warm, ServerRestarter.hashFiles(packageJson, packageLock), nodeModules, installedLock);
+            if (!warmSkips || !nodeReprobed || !treeReinstalled || !packageReinstalled) {
+                System.err.println("Error: Setup manifest wrong: warm skip " + warmSkips + ", node re-probed " + nodeReprobed
+                        + ", tree change reinstalls " + treeReinstalled + ", package change reinstalls " + packageReinstalled);
+            } else {
+                System.out.println("Setup manifest warm skip and fingerprint invalidation verified");
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Setup manifest check failed: " + e);
+        } finally {
+            deleteTree(setupDir);
+        }
+    }
+
+    // Verify a real-time game started through the tournament runs on the shared scheduler, and that Black resigning
+    // hands White the win even though moveAs never advances the turn
+    private static void checkRealTimeResignation() throws InterruptedException {
+        Tournament realTime = new Tournament();
+        Player white = realTime.registerPlayer("Jade");
+        Player black = realTime.registerPlayer("Kofi");
+        RealTimeGame game = realTime.startRealTimeGame(white, black, 2);
+        game.submit(white, 4, 6, 4, 4); // e2-e4, so White is not simply to move by default
+        long deadline = System.currentTimeMillis() + 2000;
+        while (game.getGame().getMoveCount() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        boolean accepted = game.resign(black);
+        while (realTime.getHistory().isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        List<GameRecord> history = realTime.getHistory();
+        if (!accepted || history.size() != 1 || !white.equals(history.get(0).getResult().getWinner()) || white.isBusy() || black.isBusy()) {
+            System.err.println("Error: Black's real-time resignation was not recorded as a White win: " + history.size()
+                    + " result(s), winner " + (history.isEmpty() ? "-" : history.get(0).getResult().getWinner()));
+        } else {
+            System.out.println("Real-time resignation by Black verified: " + white.getName() + " wins");
+        }
+    }
+
+    // e4 e5 and then the (simplified) queen takes the king straight away
+    private static void playPooledGame(GamePool pool, Player white, Player black) {
+        ChessGame game = pool.acquire(white, black);
+        game.start();
+        game.move(4, 6, 4, 4);
+        game.move(4, 1, 4, 3);
+        game.move(3, 7, 4, 0);
+        if (!game.isFinished() || !white.equals(game.getWinner())) {
+            throw new IllegalStateException("Scripted game did not end with White capturing the king");
+        }
+        pool.release(game);
+    }
+
+    // Appends one ustar entry (header, body and padding) for the archive tests
+    private static void tarEntry(ByteArrayOutputStream out, String name, char type, String link, byte[] body) {
+        byte[] header = new byte[512];
+        putField(header, 0, name);
+        putField(header, 100, "0000755");
+        putField(header, 108, "0000000");
+        putField(header, 116, "0000000");
+        putField(header, 124, String.format("%011o", body.length));
+        putField(header, 136, "00000000000");
+        header[156] = (byte) type;
+        putField(header, 157, link);
+        putField(header, 257, "ustar");
+        putField(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) checksum += b & 0xff;
+        putField(header, 148, String.format("%06o", checksum));
+        out.write(header, 0, 512);
+        out.write(body, 0, body.length);
+        out.write(new byte[(512 - body.length % 512) % 512], 0, (512 - body.length % 512) % 512);
+    }
+
+    private static void putField(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+
+    private static void deleteTree(File dir) {
+        if (dir == null || !dir.exists()) return;
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Temporary files are left for the OS to clean up
+        }
+    }
 }
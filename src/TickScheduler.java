@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// One fixed-rate clock for every active real-time game. Each tick advances all registered games
+// in a single batch on the scheduler thread, instead of a thread or timer per game. How late each
+// tick starts against its ideal schedule goes to Metrics.TICK_JITTER, and the time spent
+// advancing the games to Metrics.TICK_DURATION.
+public class TickScheduler {
+    public static final int DEFAULT_TICKS_PER_SECOND = 20;
+
+    private static TickScheduler shared;
+
+    private final long periodNanos;
+    private final ConcurrentLinkedQueue<RealTimeGame> joining = new ConcurrentLinkedQueue<>();
+    private final List<RealTimeGame> active = new ArrayList<>(); // scheduler thread only
+    private volatile int activeCount;
+    private volatile long tick;
+    private long firstTickNanos;
+    private long startTick; // tick number the current run began at; tick keeps counting across runs
+    private ScheduledExecutorService timer;
+
+    public TickScheduler(int ticksPerSecond) {
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+    }
+
+    // Process-wide scheduler at DEFAULT_TICKS_PER_SECOND, started on first use
+    public static synchronized TickScheduler shared() {
+        if (shared == null) {
+            shared = new TickScheduler(DEFAULT_TICKS_PER_SECOND);
+            shared.start();
+        }
+        return shared;
+    }
+
+    public synchronized void start() {
+        if (timer != null) return;
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tick-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        firstTickNanos = System.nanoTime() + periodNanos;
+        startTick = tick;
+        timer.scheduleAtFixedRate(this::runTick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            // A tick still running would otherwise overlap the first tick of a quick restart on 'active'
+            try {
+                timer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            timer = null;
+        }
+    }
+
+    // The game takes part from the next tick until it finishes
+    public void register(RealTimeGame game) {
+        joining.add(game);
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    private void runTick() {
+        long start = System.nanoTime();
+        long current = tick;
+        // Fixed-rate executions are due at firstTickNanos + n * period, n counted from this run's first tick;
+        // a late tick does not shift later ones
+        Metrics.TICK_JITTER.record(Math.max(0, start - (firstTickNanos + (current - startTick) * periodNanos)));
+
+        RealTimeGame game;
+        while ((game = joining.poll()) != null) {
+            active.add(game);
+        }
+        for (int i = 0; i < active.size(); ) {
+            game = active.get(i);
+            boolean finished;
+            try {
+                game.advance(current);
+                finished = game.isFinished();
+            } catch (RuntimeException e) {
+                // Caught per game: an exception reaching the executor would cancel the fixed-rate task, and a
+                // game that throws every tick must not keep the games after it from advancing
+                System.err.println("[TICK] Dropping a game that failed on tick " + current + ": " + e);
+                finished = true;
+            }
+            if (!finished) {
+                i++;
+                continue;
+            }
+            // Swap-remove; ordering between games does not matter. A dropped game still gets its callback so
+            // the owner can release it; isFinished() tells the two cases apart.
+            active.set(i, active.get(active.size() - 1));
+            active.remove(active.size() - 1);
+            try {
+                game.finished();
+            } catch (RuntimeException e) {
+                System.err.println("[TICK] Finish callback failed on tick " + current + ": " + e);
+            }
+        }
+        activeCount = active.size();
+        tick = current + 1;
+        Metrics.TICK_DURATION.recordSince(start);
+    }
+}
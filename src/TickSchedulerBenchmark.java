@@ -0,0 +1,93 @@
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Loads the shared-tick scheduler with many real-time games: bot threads submit random legal-looking
+// moves for both sides (each side tries about every fourth tick), finished games are reset and
+// registered again. Reports the tick rate held, tick_duration and tick_jitter after a 2 s warm-up.
+// Run with: java TickSchedulerBenchmark [games] [seconds] [bot threads]
+public class TickSchedulerBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int bots = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        PlayerTable table = new PlayerTable();
+        TickScheduler scheduler = new TickScheduler(TickScheduler.DEFAULT_TICKS_PER_SECOND);
+        ConcurrentLinkedQueue<RealTimeGame> finished = new ConcurrentLinkedQueue<>();
+        AtomicLong completed = new AtomicLong();
+        RealTimeGame[] all = new RealTimeGame[games];
+        for (int i = 0; i < games; i++) {
+            all[i] = new RealTimeGame(new ChessGame(table.add("White" + i), table.add("Black" + i)), 10, game -> {
+                completed.incrementAndGet();
+                finished.add(game);
+            });
+            all[i].getGame().start();
+        }
+        scheduler.start();
+        for (RealTimeGame game : all) scheduler.register(game);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        long tickNanos = 1_000_000_000L / TickScheduler.DEFAULT_TICKS_PER_SECOND;
+        Thread[] threads = new Thread[bots];
+        for (int t = 0; t < bots; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(first);
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    for (int i = first; i < games; i += bots) {
+                        if (!all[i].isFinished()) submitRandomMoves(all[i], random);
+                    }
+                    RealTimeGame done;
+                    while (first == 0 && (done = finished.poll()) != null) {
+                        done.reset(done.getGame().getWhitePlayer(), done.getGame().getBlackPlayer());
+                        done.getGame().start();
+                        scheduler.register(done);
+                    }
+                    LockSupport.parkNanos(tickNanos - (System.nanoTime() - start));
+                }
+            });
+            threads[t].start();
+        }
+
+        Thread.sleep(2000);
+        Metrics.TICK_JITTER.reset();
+        Metrics.TICK_DURATION.reset();
+        long completedBefore = completed.get();
+        long movesBefore = Metrics.MOVES_APPLIED.sum();
+        long ticksBefore = scheduler.getTick();
+        Thread.sleep(seconds * 1000L);
+        long ticks = scheduler.getTick() - ticksBefore;
+        long moves = Metrics.MOVES_APPLIED.sum() - movesBefore;
+        long gamesFinished = completed.get() - completedBefore;
+        running.set(false);
+        for (Thread thread : threads) thread.join();
+        scheduler.stop();
+
+        System.out.printf("%d games, %d bot threads: %.1f ticks/s, %d moves applied, %d games finished%n",
+                games, bots, ticks / (double) seconds, moves, gamesFinished);
+        System.out.println(Metrics.TICK_DURATION);
+        System.out.println(Metrics.TICK_JITTER);
+    }
+
+    private static void submitRandomMoves(RealTimeGame game, Random random) {
+        Board board = game.getGame().getBoard();
+        for (int side = 0; side < 2; side++) {
+            if (random.nextInt(4) != 0) continue;
+            int fromX = random.nextInt(8);
+            int fromY = random.nextInt(8);
+            Piece piece = board.getPiece(fromX, fromY);
+            if (piece == null || piece.isWhite() != (side == 0)) continue;
+            int toX = random.nextInt(8);
+            int toY = random.nextInt(8);
+            Piece target = board.getPiece(toX, toY);
+            if (target != null && target.isWhite() == piece.isWhite()) continue;
+            // The simplified queen can reach anything, so let it move rarely or every game ends at once
+            if (!piece.isValidMove(board, fromX, fromY, toX, toY) || piece instanceof Queen && random.nextInt(8) != 0) continue;
+            game.submit(side == 0 ? game.getGame().getWhitePlayer() : game.getGame().getBlackPlayer(), fromX, fromY, toX, toY);
+        }
+    }
+}
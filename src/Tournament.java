@@ -1,66 +1,182 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.time.Instant;
 
 public class Tournament {
-    private List<Player> players;
+    private PlayerTable players;
     private boolean isRunning;
     private Instant startTime;
     private long durationLimit; // in milliseconds
+    private Matchmaker matchmaker;
+    private RatingSystem ratingSystem;
+    private List<GameRecord> history;
 
     public Tournament() {
-        this.players = new ArrayList<>();
+        this.players = new PlayerTable();
         this.isRunning = false;
+        this.ratingSystem = new RatingSystem();
+        this.history = new ArrayList<>();
     }
 
-    public void registerPlayer(String name) {
-        players.add(new Player(name));
+    public Player registerPlayer(String name) {
+        Player player = players.add(name);
+        TrafficRecorder recorder = TrafficRecorder.active();
+        if (recorder != null) recorder.playerRegistered(player);
+        return player;
     }
 
+    // Read-only view in registration order
     public List<Player> getPlayers() {
+        return players.asList();
+    }
+
+    public PlayerTable getPlayerTable() {
         return players;
     }
 
-    public void startTournament(long durationMillis) {
+    // Players ordered by score, highest first
+    public List<Player> getLeaderboard() {
+        int[] ids = players.idsByScoreDescending();
+        List<Player> leaderboard = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            leaderboard.add(players.get(id));
+        }
+        return leaderboard;
+    }
+
+    public synchronized void startTournament(long durationMillis) {
         this.startTime = Instant.now();
         this.durationLimit = durationMillis;
         this.isRunning = true;
         System.out.println("Tournament started! Duration: " + durationMillis + "ms");
     }
 
-    public boolean isRunning() {
+    // Synchronized so only one caller sees the deadline pass and commits TournamentExpired
+    public synchronized boolean isRunning() {
         if (!isRunning) return false;
         long elapsed = Instant.now().toEpochMilli() - startTime.toEpochMilli();
         if (elapsed >= durationLimit) {
             isRunning = false;
             System.out.println("Tournament time expired!");
+            GameEvents.TournamentExpired event = new GameEvents.TournamentExpired();
+            if (event.shouldCommit()) {
+                event.durationLimit = durationLimit;
+                event.players = players.size();
+                event.games = history.size();
+                event.commit();
+            }
         }
         return isRunning;
     }
 
+    // Starts a real-time game on the shared tick scheduler; the result is recorded when it ends
+    public RealTimeGame startRealTimeGame(Player white, Player black, int cooldownTicks) {
+        white.setBusy(true);
+        black.setBusy(true);
+        RealTimeGame game = new RealTimeGame(new ChessGame(white, black), cooldownTicks, ended -> {
+            if (ended.isFinished()) {
+                recordGameResult(ended.getGame().toResult(), white, black);
+            } else {
+                // Dropped by the scheduler after failing; there is no result to record
+                white.setBusy(false);
+                black.setBusy(false);
+            }
+        });
+        game.getGame().start();
+        TickScheduler.shared().register(game);
+        return game;
+    }
+
     public Player getPlayerByName(String name) {
-        for (Player p : players) {
-            if (p.getName().equalsIgnoreCase(name)) {
-                return p;
+        return players.findByName(name);
+    }
+
+    public void recordGameResult(GameResult result, Player p1, Player p2) {
+        long start = System.nanoTime();
+        GameEvents.ResultRecorded event = new GameEvents.ResultRecorded();
+        event.begin();
+        // Score, rating and history change together so concurrent games never observe a half-applied result
+        synchronized (this) {
+            if (result.isDraw()) {
+                long points = result.getDuration();
+                p1.addScore(points);
+                p2.addScore(points);
+                System.out.println("Draw! Both players get " + points + " ms.");
+            } else {
+                Player winner = result.getWinner();
+                long points = result.getDuration() * 3;
+                winner.addScore(points);
+                System.out.println(winner.getName() + " wins! Gets " + points + " ms.");
             }
+            GameRecord record = new GameRecord(p1, p2, result);
+            ratingSystem.applyGame(record);
+            history.add(record);
+            p1.recordGame(p2, true);
+            p2.recordGame(p1, false);
+            p1.setBusy(false);
+            p2.setBusy(false);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.white = p1.getName();
+            event.black = p2.getName();
+            event.winner = result.isDraw() ? null : result.getWinner().getName();
+            event.gameDuration = result.getDuration();
+            event.commit();
+        }
+        TrafficRecorder recorder = TrafficRecorder.active();
+        if (recorder != null) recorder.resultRecorded(p1, p2, result);
+        Metrics.GAMES_RECORDED.increment();
+        Metrics.TOURNAMENT_RECORD_RESULT.recordSince(start);
+        if (matchmaker != null && isRunning()) {
+            matchmaker.enqueue(p1);
+            matchmaker.enqueue(p2);
         }
-        return null;
     }
 
-    public void recordGameResult(GameResult result, Player p1, Player p2) {
-        if (result.isDraw()) {
-            long points = result.getDuration();
-            p1.addScore(points);
-            p2.addScore(points);
-            System.out.println("Draw! Both players get " + points + " ms.");
-        } else {
-            Player winner = result.getWinner();
-            long points = result.getDuration() * 3;
-            winner.addScore(points);
-            System.out.println(winner.getName() + " wins! Gets " + points + " ms.");
+    public synchronized List<GameRecord> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    public synchronized RatingSystem getRatingSystem() {
+        return ratingSystem;
+    }
+
+    // Switches to a new rating model and replays every recorded game under it
+    public synchronized void recomputeRatings(RatingSystem newRatingSystem, int gamesPerPeriod) {
+        this.ratingSystem = newRatingSystem;
+        newRatingSystem.recompute(players.asList(), history, gamesPerPeriod);
+    }
+
+    // Idle players are paired automatically as soon as a compatible opponent is free.
+    // The score band (in ms of score) starts at baseBand and widens while a player waits.
+    public void enableMatchmaking(long baseBand, long widenPerSecond, long maxBand, Consumer<Pairings.Pairing> onMatch) {
+        disableMatchmaking(); // a second call replaces the matchmaker instead of leaking its sweeper thread
+        matchmaker = new Matchmaker(baseBand, widenPerSecond, maxBand, onMatch);
+        for (Player p : players.asList()) {
+            matchmaker.enqueue(p);
         }
-        p1.setBusy(false);
-        p2.setBusy(false);
+        matchmaker.start();
+    }
+
+    public void disableMatchmaking() {
+        if (matchmaker != null) {
+            matchmaker.stop();
+            matchmaker = null;
+        }
+    }
+
+    public Matchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
+    public List<Pairings.Pairing> pairRoundRobin(int round) {
+        return Pairings.roundRobin(players.asList(), round);
+    }
+
+    public List<Pairings.Pairing> pairSwiss() {
+        return Pairings.swiss(players.idlePlayers());
     }
 }
 
@@ -0,0 +1,186 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// Captures tournament traffic into a compact binary trace for TrafficReplay. While a recorder is
+// active, Tournament and ChessGame report registrations, game starts, every on-board move attempt
+// (including ones refused because the game is over or the piece is not the mover's), resignations,
+// draws and recorded results to it; with none active they only pay a volatile read.
+//
+// Trace layout: MAGIC, VERSION, then one record per event: a type byte, the microseconds since the
+// previous record as a varint, and the payload below. Players are referred to by PlayerTable id and
+// games by a trace-local id assigned at start. Registrations on different threads may be recorded
+// out of id order, so REGISTER carries the id the table assigned.
+//   REGISTER  player, name (modified UTF-8)
+//   START     game, white, black
+//   MOVE      game, from | to << 6 | real-time bit | as-White bit   (squares y * 8 + x)
+//   RESIGN    game, flags byte (White-resigned bit)
+//   DRAW      game
+//   RESULT    white, black, outcome (0 draw, 1 White won, 2 Black won), duration in ms
+public class TrafficRecorder implements AutoCloseable {
+    static final int MAGIC = 0x54524346; // "TRCF"
+    static final int VERSION = 3; // 1 had no player id in REGISTER, 2 no flags in RESIGN
+
+    static final int REGISTER = 1;
+    static final int START = 2;
+    static final int MOVE = 3;
+    static final int RESIGN = 4;
+    static final int DRAW = 5;
+    static final int RESULT = 6;
+
+    static final int REAL_TIME_BIT = 1 << 12;
+    static final int AS_WHITE_BIT = 1 << 13;
+    static final int WHITE_RESIGNED_BIT = 1;
+
+    private static volatile TrafficRecorder active;
+
+    private final File file;
+    private final DataOutputStream out;
+    private long lastMicros;
+    private long nextGame;
+    private long records;
+    private boolean failed;
+
+    public TrafficRecorder(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        this.lastMicros = System.nanoTime() / 1000;
+    }
+
+    // Starts recording every tournament and game in this process; returns the new recorder
+    public static synchronized TrafficRecorder start(File file) throws IOException {
+        if (active != null) active.close();
+        active = new TrafficRecorder(file);
+        return active;
+    }
+
+    public static TrafficRecorder active() {
+        return active;
+    }
+
+    public synchronized void playerRegistered(Player player) {
+        try {
+            header(REGISTER);
+            writeVarLong(out, player.getId());
+            out.writeUTF(player.getName());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Returns the id that later move and end records of this game refer to
+    public synchronized long gameStarted(Player white, Player black) {
+        long game = nextGame++;
+        try {
+            header(START);
+            writeVarLong(out, game);
+            writeVarLong(out, white.getId());
+            writeVarLong(out, black.getId());
+        } catch (IOException e) {
+            fail(e);
+        }
+        return game;
+    }
+
+    public synchronized void moveAttempted(long game, int from, int to, boolean realTime, boolean asWhite) {
+        try {
+            header(MOVE);
+            writeVarLong(out, game);
+            out.writeShort(from | (to << 6) | (realTime ? REAL_TIME_BIT : 0) | (asWhite ? AS_WHITE_BIT : 0));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized void gameResigned(long game, boolean whiteResigned) {
+        try {
+            header(RESIGN);
+            writeVarLong(out, game);
+            out.writeByte(whiteResigned ? WHITE_RESIGNED_BIT : 0);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized void gameDrawn(long game) {
+        try {
+            header(DRAW);
+            writeVarLong(out, game);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized void resultRecorded(Player white, Player black, GameResult result) {
+        try {
+            header(RESULT);
+            writeVarLong(out, white.getId());
+            writeVarLong(out, black.getId());
+            out.writeByte(result.isDraw() ? 0 : result.getWinner().equals(white) ? 1 : 2);
+            writeVarLong(out, result.getDuration());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() {
+        synchronized (TrafficRecorder.class) {
+            if (active == this) active = null;
+        }
+        synchronized (this) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            failed = true; // later events from games still holding this recorder are dropped
+        }
+    }
+
+    private void header(int type) throws IOException {
+        if (failed) throw new IOException("closed");
+        long now = System.nanoTime() / 1000;
+        out.writeByte(type);
+        writeVarLong(out, Math.max(0, now - lastMicros));
+        lastMicros = now;
+        records++;
+    }
+
+    // The recorder must never fail a game, so the first I/O error just stops the trace
+    private void fail(IOException e) {
+        if (!failed) {
+            failed = true;
+            System.err.println("[TRACE] Stopped recording to " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
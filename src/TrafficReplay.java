@@ -0,0 +1,393 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drives Tournament, ChessGame and Board with a trace written by TrafficRecorder and reports
+// throughput and latency percentiles per operation.
+//
+// A dispatcher thread walks the trace in time order, scaled by --speed (1, 10, ... or max for no
+// waiting), registers players itself so they exist before any game names them, and hands every game
+// event to one of --threads workers chosen by game id, so a game's moves stay in order on one thread
+// while different games run in parallel. --copies replays the trace that many times side by side with
+// separate players, to push more load than was recorded.
+//
+// Events naming a game or player from before the recording started, or a game that has already ended,
+// are skipped and counted; any other exception fails the run. Moves the board refuses are counted as
+// rejected: the recording holds every on-board attempt, so some are expected, but a replay that
+// diverges from the recording shows up there too.
+//
+// Record with: java -DtrafficTrace=trace.bin Main
+// Then run:    java TrafficReplay trace.bin --speed 10 --threads 8
+public class TrafficReplay {
+    private static final int QUEUE_CAPACITY = 4096;
+    // run() sizes a per-copy array by the largest player id, so a corrupt trace must not pick it
+    private static final int MAX_PLAYER_ID = 1 << 24;
+
+    // Trace loaded into parallel arrays; a, b, c hold the record's fields in trace order, with a
+    // RESULT's outcome and duration packed into c as outcome | duration << 2 and a REGISTER's
+    // recorded player id in a and its index into names in b
+    private final List<String> names = new ArrayList<>();
+    private int maxPlayerId = -1;
+    private byte[] types = new byte[1024];
+    private long[] times = new long[1024]; // microseconds since recording started
+    private long[] a = new long[1024];
+    private long[] b = new long[1024];
+    private long[] c = new long[1024];
+    private int size;
+
+    private final LatencyHistogram registerLatency = new LatencyHistogram("register");
+    private final LatencyHistogram startLatency = new LatencyHistogram("game_start");
+    private final LatencyHistogram moveLatency = new LatencyHistogram("move");
+    private final LatencyHistogram endLatency = new LatencyHistogram("resign_or_draw");
+    private final LatencyHistogram resultLatency = new LatencyHistogram("record_result");
+    private final LatencyHistogram scheduleLag = new LatencyHistogram("schedule_lag");
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder[] outcomes = {new LongAdder(), new LongAdder(), new LongAdder()}; // draw, White, Black
+    private final LongAdder finalPositions = new LongAdder(); // sum of the position hashes games ended on
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private Tournament tournament;
+    private int copies;
+    private Player[][] players; // per copy, indexed by the recorded player id
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        double speed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int copies = 1;
+        boolean quiet = false;
+        boolean valid = args.length >= 1;
+        try {
+            for (int i = 1; i < args.length && valid; i++) {
+                String option = args[i];
+                if (option.equals("--quiet")) {
+                    quiet = true;
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    valid = false;
+                    break;
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--speed":
+                        // 0 is how run() spells max, so only positive factors are accepted as numbers
+                        speed = value.equals("max") ? 0 : Double.parseDouble(value);
+                        valid = value.equals("max") || (speed > 0 && speed < Double.POSITIVE_INFINITY);
+                        break;
+                    case "--threads": threads = Integer.parseInt(value); valid = threads > 0; break;
+                    case "--copies": copies = Integer.parseInt(value); valid = copies > 0; break;
+                    default: valid = false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            valid = false;
+        }
+        if (!valid) {
+            System.out.println("Usage: java TrafficReplay <trace> [--speed 1|10|...|max] [--threads N] [--copies N] [--quiet]");
+            System.out.println("  --speed X    replay X times faster than recorded, X > 0, or max for no waiting (1)");
+            System.out.println("  --threads N  worker threads (available processors)");
+            System.out.println("  --copies N   copies of the trace replayed side by side (1)");
+            System.out.println("  --quiet      discard what Tournament prints");
+            return;
+        }
+
+        TrafficReplay replay = new TrafficReplay();
+        replay.load(args[0]);
+        System.out.printf("Loaded %d records, %d players, %.1f s of traffic%n", replay.size,
+                replay.names.size(), replay.size == 0 ? 0 : (replay.times[replay.size - 1] - replay.times[0]) / 1e6);
+
+        PrintStream console = System.out;
+        if (quiet) {
+            // Tournament reports every result on stdout, which would dominate a max-speed replay
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        long elapsed = replay.run(speed, threads, copies);
+        System.setOut(console);
+        replay.report(elapsed, speed, threads, copies);
+    }
+
+    void load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+            if (in.readInt() != TrafficRecorder.MAGIC) throw new IOException(path + " is not a traffic trace");
+            int version = in.readUnsignedShort();
+            if (version < 1 || version > TrafficRecorder.VERSION) throw new IOException("Unsupported trace version " + version);
+
+            long time = 0;
+            while (true) {
+                int type;
+                try {
+                    type = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                time += TrafficRecorder.readVarLong(in);
+                if (size == types.length) grow();
+                types[size] = (byte) type;
+                times[size] = time;
+                switch (type) {
+                    case TrafficRecorder.REGISTER:
+                        a[size] = version == 1 ? names.size() : TrafficRecorder.readVarLong(in);
+                        if (a[size] < 0 || a[size] > MAX_PLAYER_ID) {
+                            throw new IOException("Player id " + a[size] + " out of range in REGISTER record " + size);
+                        }
+                        b[size] = names.size();
+                        names.add(in.readUTF());
+                        maxPlayerId = (int) Math.max(maxPlayerId, a[size]);
+                        break;
+                    case TrafficRecorder.START:
+                        a[size] = TrafficRecorder.readVarLong(in);
+                        b[size] = TrafficRecorder.readVarLong(in);
+                        c[size] = TrafficRecorder.readVarLong(in);
+                        break;
+                    case TrafficRecorder.MOVE:
+                        a[size] = TrafficRecorder.readVarLong(in);
+                        b[size] = in.readUnsignedShort();
+                        break;
+                    case TrafficRecorder.RESIGN:
+                        a[size] = TrafficRecorder.readVarLong(in);
+                        b[size] = version < 3 ? -1 : in.readUnsignedByte(); // -1: older traces, the side to move
+                        break;
+                    case TrafficRecorder.DRAW:
+                        a[size] = TrafficRecorder.readVarLong(in);
+                        break;
+                    case TrafficRecorder.RESULT:
+                        a[size] = TrafficRecorder.readVarLong(in);
+                        b[size] = TrafficRecorder.readVarLong(in);
+                        c[size] = in.readUnsignedByte() | TrafficRecorder.readVarLong(in) << 2;
+                        break;
+                    default:
+                        throw new IOException("Unknown record type " + type + " at record " + size);
+                }
+                size++;
+            }
+        }
+    }
+
+    int getRecordCount() {
+        return size;
+    }
+
+    Tournament getTournament() {
+        return tournament;
+    }
+
+    long getRejectedMoves() {
+        return rejected.sum();
+    }
+
+    long getSkipped() {
+        return skipped.sum();
+    }
+
+    // Games that ended as draws, White wins and Black wins
+    long[] getOutcomes() {
+        return new long[]{outcomes[0].sum(), outcomes[1].sum(), outcomes[2].sum()};
+    }
+
+    long getFinalPositions() {
+        return finalPositions.sum();
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        times = Arrays.copyOf(times, capacity);
+        a = Arrays.copyOf(a, capacity);
+        b = Arrays.copyOf(b, capacity);
+        c = Arrays.copyOf(c, capacity);
+    }
+
+    // Returns the wall time of the replay in nanoseconds; rethrows the first exception a worker hit
+    long run(double speed, int threadCount, int copies) throws InterruptedException {
+        this.tournament = new Tournament();
+        this.copies = copies;
+        players = new Player[copies][maxPlayerId + 1];
+        List<BlockingQueue<long[]>> queues = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            BlockingQueue<long[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            queues.add(queue);
+            Thread worker = new Thread(() -> work(queue), "replay-worker-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < size && failure.get() == null; i++) {
+            long due = speed == 0 ? 0 : start + (long) ((times[i] - times[0]) * 1000 / speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            for (int copy = 0; copy < copies; copy++) {
+                if (types[i] == TrafficRecorder.REGISTER) {
+                    long t0 = System.nanoTime();
+                    String name = copies == 1 ? names.get((int) b[i]) : names.get((int) b[i]) + "#" + copy;
+                    players[copy][(int) a[i]] = tournament.registerPlayer(name);
+                    registerLatency.recordSince(t0);
+                    if (due > 0) scheduleLag.record(Math.max(0, t0 - due));
+                    continue;
+                }
+                // Results carry no game id, so they are spread by player instead
+                long key = types[i] == TrafficRecorder.RESULT ? a[i] * 31 + b[i] : a[i];
+                int worker = (int) Math.floorMod(key * copies + copy, (long) threadCount);
+                dispatch(queues.get(worker), workers.get(worker), new long[]{i, copy, due});
+            }
+        }
+        for (int i = 0; i < threadCount; i++) dispatch(queues.get(i), workers.get(i), new long[]{-1});
+        for (Thread worker : workers) worker.join();
+        if (failure.get() != null) throw new IllegalStateException("Replay failed", failure.get());
+        return System.nanoTime() - start;
+    }
+
+    // A worker that failed stops taking tasks, so its queue may stay full
+    private static void dispatch(BlockingQueue<long[]> queue, Thread worker, long[] task) throws InterruptedException {
+        while (!queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+            if (!worker.isAlive()) return;
+        }
+    }
+
+    private void work(BlockingQueue<long[]> queue) {
+        GamePool pool = new GamePool(64);
+        Map<Long, ChessGame> games = new HashMap<>(); // by copy and recorded game id
+        try {
+            while (true) {
+                long[] task = queue.take();
+                int i = (int) task[0];
+                if (i < 0) return;
+                int copy = (int) task[1];
+                long started = System.nanoTime();
+                if (task[2] > 0) scheduleLag.record(Math.max(0, started - task[2]));
+                try {
+                    replay(i, copy, games, pool, started);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, new IllegalStateException("Record " + i + " (type " + types[i] + ")", e));
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replay(int i, int copy, Map<Long, ChessGame> games, GamePool pool, long started) {
+        long gameKey = a[i] * copies + copy;
+        switch (types[i]) {
+            case TrafficRecorder.START: {
+                Player white = player(copy, b[i]);
+                Player black = player(copy, c[i]);
+                if (white == null || black == null) {
+                    skipped.increment();
+                    return;
+                }
+                ChessGame game = pool.acquire(white, black);
+                game.start();
+                ChessGame previous = games.put(gameKey, game);
+                if (previous != null) pool.release(previous);
+                startLatency.recordSince(started);
+                break;
+            }
+            case TrafficRecorder.MOVE: {
+                ChessGame game = games.get(gameKey);
+                if (game == null) {
+                    skipped.increment(); // started before the recording did
+                    return;
+                }
+                int move = (int) b[i];
+                int from = move & 63;
+                int to = (move >>> 6) & 63;
+                boolean applied;
+                if ((move & TrafficRecorder.REAL_TIME_BIT) != 0) {
+                    applied = game.moveAs((move & TrafficRecorder.AS_WHITE_BIT) != 0, from & 7, from >>> 3, to & 7, to >>> 3);
+                } else {
+                    applied = game.move(from & 7, from >>> 3, to & 7, to >>> 3);
+                }
+                moveLatency.recordSince(started);
+                if (!applied) rejected.increment();
+                if (game.isFinished()) end(games.remove(gameKey), pool);
+                break;
+            }
+            case TrafficRecorder.RESIGN:
+            case TrafficRecorder.DRAW: {
+                ChessGame game = games.remove(gameKey);
+                if (game == null) {
+                    skipped.increment();
+                    return;
+                }
+                if (types[i] == TrafficRecorder.DRAW) {
+                    game.agreeDraw();
+                } else if (b[i] < 0) {
+                    game.resign();
+                } else {
+                    game.resign((b[i] & TrafficRecorder.WHITE_RESIGNED_BIT) != 0);
+                }
+                endLatency.recordSince(started);
+                end(game, pool);
+                break;
+            }
+            case TrafficRecorder.RESULT: {
+                Player white = player(copy, a[i]);
+                Player black = player(copy, b[i]);
+                if (white == null || black == null) {
+                    skipped.increment();
+                    return;
+                }
+                int outcome = (int) (c[i] & 3);
+                Player winner = outcome == 1 ? white : outcome == 2 ? black : null;
+                tournament.recordGameResult(new GameResult(winner, c[i] >>> 2), white, black);
+                resultLatency.recordSince(started);
+                break;
+            }
+            default:
+        }
+    }
+
+    private void end(ChessGame game, GamePool pool) {
+        Player winner = game.getWinner();
+        outcomes[winner == null ? 0 : winner.equals(game.getWhitePlayer()) ? 1 : 2].increment();
+        finalPositions.add(game.getBoard().positionHash(true));
+        pool.release(game);
+    }
+
+    // Null for a player registered before the recording started
+    private Player player(int copy, long id) {
+        return id >= 0 && id < players[copy].length ? players[copy][(int) id] : null;
+    }
+
+    private void report(long elapsedNanos, double speed, int threads, int copies) {
+        long events = 0;
+        LatencyHistogram[] all = {registerLatency, startLatency, moveLatency, endLatency, resultLatency};
+        for (LatencyHistogram h : all) events += h.getCount();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Replayed %d events at %s speed on %d threads, %d cop%s, in %.2f s: %.0f events/s%n",
+                events, speed == 0 ? "max" : speed + "x", threads, copies, copies == 1 ? "y" : "ies",
+                seconds, events / seconds);
+        if (skipped.sum() > 0) System.out.println("Skipped " + skipped.sum() + " events that refer to unrecorded games or players");
+        if (rejected.sum() > 0) System.out.println("Rejected " + rejected.sum() + " moves the board refused");
+        long[] ended = getOutcomes();
+        System.out.printf("Games ended: %d White wins, %d Black wins, %d draws%n", ended[1], ended[2], ended[0]);
+        System.out.printf("%-16s %10s %10s %10s %10s %10s%n", "Operation", "Count", "p50 (us)", "p99 (us)", "p999 (us)", "Max (us)");
+        for (LatencyHistogram h : all) printRow(h);
+        if (speed > 0) printRow(scheduleLag);
+    }
+
+    private static void printRow(LatencyHistogram h) {
+        if (h.getCount() == 0) return;
+        System.out.printf("%-16s %10d %10.1f %10.1f %10.1f %10.1f%n", h.getName(), h.getCount(),
+                h.getValueAtQuantile(0.5) / 1e3, h.getValueAtQuantile(0.99) / 1e3,
+                h.getValueAtQuantile(0.999) / 1e3, h.getValueAtQuantile(1.0) / 1e3);
+    }
+}
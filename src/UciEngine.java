@@ -0,0 +1,181 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+// UCI front-end for Engine, so it can be driven by SprtMatch, by a chess GUI or against
+// web/lib/stockfish_uci.js. Positions are applied with the board's simplified rules: castling,
+// en passant and promotion sent by the other side only move the named piece.
+// Run with: java UciEngine
+public class UciEngine {
+    private static final String NAME = "Tournament Engine";
+
+    private final Board board = new Board();
+    private final Engine engine = new Engine(EvaluationCache.SHARED);
+    private boolean whiteToMove = true;
+    private Thread searchThread;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        new UciEngine().run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+    }
+
+    private void run(BufferedReader in) throws IOException, InterruptedException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            switch (tokens[0]) {
+                case "uci":
+                    send("id name " + NAME);
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "ucinewgame":
+                    awaitSearch();
+                    EvaluationCache.SHARED.clear();
+                    break;
+                case "position":
+                    awaitSearch();
+                    setPosition(tokens);
+                    break;
+                case "go":
+                    awaitSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    engine.stop();
+                    awaitSearch();
+                    break;
+                case "quit":
+                    engine.stop();
+                    awaitSearch();
+                    return;
+                default:
+                    // Unknown commands are ignored, as the protocol asks
+            }
+        }
+    }
+
+    // position startpos [moves ...] | position fen <placement> <side> ... [moves ...]
+    private void setPosition(String[] tokens) {
+        int i;
+        if (tokens.length > 1 && tokens[1].equals("fen") && tokens.length > 3) {
+            loadFen(tokens[2]);
+            whiteToMove = !tokens[3].equals("b");
+            i = 4;
+        } else {
+            board.reset();
+            whiteToMove = true;
+            i = 2;
+        }
+        while (i < tokens.length && !tokens[i].equals("moves")) i++;
+        for (i++; i < tokens.length; i++) {
+            int move = Engine.parseMove(tokens[i]);
+            if (move == Engine.NO_MOVE) continue;
+            int from = Engine.from(move);
+            int to = Engine.to(move);
+            // The GUI is the referee, so moves are applied as given
+            board.setPiece(to & 7, to >>> 3, board.getPiece(from & 7, from >>> 3));
+            board.setPiece(from & 7, from >>> 3, null);
+            whiteToMove = !whiteToMove;
+        }
+    }
+
+    // Only the piece placement field is used; the board tracks nothing else
+    private void loadFen(String placement) {
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) board.setPiece(x, y, null);
+        }
+        int x = 0;
+        int y = 0;
+        for (char c : placement.toCharArray()) {
+            if (c == '/') {
+                x = 0;
+                y++;
+            } else if (c >= '1' && c <= '8') {
+                x += c - '0';
+            } else if (x < 8 && y < 8) {
+                board.setPiece(x++, y, pieceFor(c));
+            }
+        }
+    }
+
+    private static Piece pieceFor(char c) {
+        boolean white = Character.isUpperCase(c);
+        switch (Character.toLowerCase(c)) {
+            case 'k': return white ? King.WHITE : King.BLACK;
+            case 'q': return white ? Queen.WHITE : Queen.BLACK;
+            case 'r': return white ? Rook.WHITE : Rook.BLACK;
+            case 'b': return white ? Bishop.WHITE : Bishop.BLACK;
+            case 'n': return white ? Knight.WHITE : Knight.BLACK;
+            default: return white ? Pawn.WHITE : Pawn.BLACK;
+        }
+    }
+
+    // go [depth N] [movetime ms] [wtime ms btime ms winc ms binc ms movestogo N] [infinite]
+    private void go(String[] tokens) {
+        int depth = 64;
+        long moveTime = 0;
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 30;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            String value = tokens[i + 1];
+            // A malformed or negative value leaves the default in place
+            switch (tokens[i]) {
+                case "depth": depth = (int) Math.max(1, Math.min(64, parse(value, depth))); break;
+                case "movetime": moveTime = parse(value, moveTime); break;
+                case "wtime": if (whiteToMove) time = parse(value, time); break;
+                case "btime": if (!whiteToMove) time = parse(value, time); break;
+                case "winc": if (whiteToMove) increment = parse(value, increment); break;
+                case "binc": if (!whiteToMove) increment = parse(value, increment); break;
+                case "movestogo": movesToGo = (int) Math.max(1, Math.min(1000, parse(value, movesToGo))); break;
+                default:
+            }
+        }
+        if (moveTime == 0 && time >= 0) {
+            // Spread the clock over the remaining moves, keeping a margin for process latency
+            moveTime = Math.max(1, Math.min(time / movesToGo + increment * 3 / 4, time - 50));
+        }
+
+        int maxDepth = depth;
+        long limit = moveTime;
+        searchThread = new Thread(() -> {
+            int best = engine.search(board, whiteToMove, maxDepth, limit, (d, score, nodes, millis, move) ->
+                    send("info depth " + d + " score " + formatScore(score) + " nodes " + nodes
+                            + " time " + millis + " pv " + Engine.formatMove(move)));
+            send("bestmove " + (best == Engine.NO_MOVE ? "0000" : Engine.formatMove(best)));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    private static long parse(String value, long fallback) {
+        try {
+            long parsed = Long.parseLong(value);
+            return parsed < 0 ? fallback : parsed;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private void awaitSearch() throws InterruptedException {
+        if (searchThread != null) {
+            searchThread.join();
+            searchThread = null;
+        }
+    }
+
+    private static String formatScore(int score) {
+        if (Math.abs(score) >= Engine.MATE - 256) {
+            int plies = Engine.MATE - Math.abs(score);
+            return "mate " + (score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2);
+        }
+        return "cp " + score;
+    }
+
+    private static synchronized void send(String message) {
+        System.out.println(message);
+        System.out.flush();
+    }
+}
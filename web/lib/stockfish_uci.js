@@ -0,0 +1,24 @@
+/**
+ * Stockfish UCI bridge - Exposes stockfish.js as a plain UCI engine on stdin/stdout
+ *
+ * Lets command-line tools such as the Java SprtMatch runner talk to the bundled engine:
+ *   java SprtMatch "java UciEngine" "node web/lib/stockfish_uci.js"
+ */
+const path = require('path');
+const readline = require('readline');
+
+// stockfish.js reports through the web worker global postMessage
+global.postMessage = function (text) {
+    process.stdout.write(text + '\n');
+};
+
+require(path.join(__dirname, 'stockfish.js'));
+
+const input = readline.createInterface({ input: process.stdin });
+input.on('line', (line) => {
+    if (line.trim() === 'quit') {
+        process.exit(0);
+    }
+    global.onmessage({ data: line });
+});
+input.on('close', () => process.exit(0));
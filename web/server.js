@@ -6,7 +6,10 @@ const ComputerPlayer = require('./lib/ComputerPlayer');
 const TournamentAI = require('./lib/TournamentAI');
 
 const app = express();
-const PORT = 3000;
+const PORT = process.env.PORT || 3000;
+// When the Java restarter proxies to this process, PORT is an internal port and PUBLIC_PORT is what players use
+const PUBLIC_PORT = process.env.PUBLIC_PORT || PORT;
+const HOST = process.env.HOST || '0.0.0.0';
 
 // Middleware
 app.use(express.json());
@@ -193,6 +196,12 @@ app.post('/api/reset', (req, res) => {
     res.json({ success: true, message: 'Tournament reset successfully' });
 });
 
+// Readiness probe for the Java restarter: echoes the nonce it started this process with, so an
+// unrelated listener on the same port is never mistaken for this worker
+app.get('/api/ready', (req, res) => {
+    res.json({ nonce: process.env.STARTUP_NONCE || null, pid: process.pid });
+});
+
 // Get server info (LAN IPs for sharing)
 app.get('/api/server-info', (req, res) => {
     const os = require('os');
@@ -208,10 +217,10 @@ app.get('/api/server-info', (req, res) => {
     }
 
     res.json({
-        port: PORT,
+        port: PUBLIC_PORT,
         lanIPs,
-        localUrl: `http://localhost:${PORT}`,
-        lanUrls: lanIPs.map(ip => `http://${ip}:${PORT}`)
+        localUrl: `http://localhost:${PUBLIC_PORT}`,
+        lanUrls: lanIPs.map(ip => `http://${ip}:${PUBLIC_PORT}`)
     });
 });
 
@@ -892,11 +901,11 @@ function parseTimeControl(input, inputIncrement = 0) {
 }
 
 // Start server on 0.0.0.0 for LAN access
-app.listen(PORT, '0.0.0.0', () => {
+app.listen(PORT, HOST, () => {
     console.log(`\n╔══════════════════════════════════════════════════════════════╗`);
     console.log(`║           Chess Tournament Server Started!                   ║`);
     console.log(`╚══════════════════════════════════════════════════════════════╝`);
-    console.log(`\nLocal:    http://localhost:${PORT}`);
+    console.log(`\nLocal:    http://localhost:${PUBLIC_PORT}`);
 
     // Get and display LAN IP addresses
     const os = require('os');
@@ -915,7 +924,7 @@ app.listen(PORT, '0.0.0.0', () => {
     if (lanIPs.length > 0) {
         console.log(`\nLAN Access (for other devices on same WiFi):`);
         lanIPs.forEach(ip => {
-            console.log(`          http://${ip}:${PORT}`);
+            console.log(`          http://${ip}:${PUBLIC_PORT}`);
         });
         console.log(`\nShare these URLs with other players!`);
     }